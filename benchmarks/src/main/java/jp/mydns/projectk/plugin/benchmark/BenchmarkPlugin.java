@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.benchmark;
+
+import jp.mydns.projectk.plugin.Plugin;
+
+/**
+ * Plug-in interface for benchmarking.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+public interface BenchmarkPlugin extends Plugin {
+
+    /**
+     * Do a trivial work.
+     *
+     * @param arg any value
+     * @return result of the work
+     * @since 1.1.0
+     */
+    int work(int arg);
+
+    /**
+     * Implements the {@code BenchmarkPlugin}. It is loaded by the application class loader, and used as the baseline
+     * of a direct instantiation.
+     *
+     * @author riru
+     * @version 1.1.0
+     * @since 1.1.0
+     */
+    class Direct implements BenchmarkPlugin {
+
+        @Override
+        public int work(int arg) {
+            return arg + 1;
+        }
+
+        @Override
+        public String getAbout() {
+            return "For benchmarking";
+        }
+
+        @Override
+        public String getVersion() {
+            return "1.0.0";
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import jp.mydns.projectk.plugin.PluginLoader;
+import jp.mydns.projectk.plugin.impl.PluginLoaderImpl;
+import jp.mydns.projectk.plugin.impl.PluginStorageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the plug-in discovery. Measures the construction of the {@code PluginStorageImpl}, that scans the
+ * directory and reads the manifest of each jar file, and the construction of the {@code PluginLoaderImpl} from an
+ * already scanned storage.
+ * <p>
+ * Plug-ins have a library jar of varying size up to {@code libraryKiB}. The library does not affect the discovery
+ * itself, but it makes the directory and the page cache closer to a real deployment.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscoveryBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int plugins;
+
+    @Param({"0", "256"})
+    public int libraryKiB;
+
+    private Path dir;
+    private PluginStorageImpl storage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("plugins");
+        SyntheticPlugins.write(dir, SyntheticPlugins.names(plugins), libraryKiB);
+        storage = new PluginStorageImpl(dir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticPlugins.delete(dir);
+    }
+
+    /**
+     * Scan the directory serially.
+     *
+     * @return the {@code PluginStorageImpl}
+     */
+    @Benchmark
+    public PluginStorageImpl storage() {
+        return new PluginStorageImpl(dir);
+    }
+
+    /**
+     * Scan the directory in parallel by all available processors.
+     *
+     * @return the {@code PluginStorageImpl}
+     */
+    @Benchmark
+    public PluginStorageImpl storageParallel() {
+        return new PluginStorageImpl(Runtime.getRuntime().availableProcessors(), dir);
+    }
+
+    /**
+     * Construct and close the plug-in loader. No class loader is created, because they are created on first load.
+     *
+     * @return number of plug-ins
+     */
+    @Benchmark
+    public long loader() {
+        try (PluginLoader<BenchmarkPlugin> loader = new PluginLoaderImpl<>(BenchmarkPlugin.class, storage)) {
+            return loader.stream().count();
+        }
+    }
+}
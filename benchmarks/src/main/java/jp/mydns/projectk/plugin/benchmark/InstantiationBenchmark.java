@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.benchmark;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import jp.mydns.projectk.plugin.PluginLoader;
+import jp.mydns.projectk.plugin.impl.PluginLoaderImpl;
+import jp.mydns.projectk.plugin.impl.PluginStorageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the plug-in instantiation. Compares the reflective path that was used until 1.0.0 with the cached
+ * {@code MethodHandle} of the {@code PluginLoaderImpl}, and a direct {@code new} as the lower bound.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstantiationBenchmark {
+
+    private static final String NAME = "InstantiationPlugin";
+
+    private Path dir;
+    private PluginLoader<BenchmarkPlugin> loader;
+    private URLClassLoader reflectiveLoader;
+    private String className;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        dir = Files.createTempDirectory("plugins");
+        SyntheticPlugins.write(dir, List.of(NAME));
+
+        loader = new PluginLoaderImpl<>(BenchmarkPlugin.class, new PluginStorageImpl(dir));
+        className = SyntheticPlugins.PACKAGE + "." + NAME;
+        reflectiveLoader = new URLClassLoader(new URL[]{dir.resolve(NAME + ".jar").toUri().toURL()},
+                Thread.currentThread().getContextClassLoader());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        loader.close();
+        reflectiveLoader.close();
+        SyntheticPlugins.delete(dir);
+    }
+
+    /**
+     * The path used until 1.0.0. Resolves the class and constructor on each call, and instantiates reflectively.
+     *
+     * @return new plug-in instance
+     * @throws ReflectiveOperationException if failed instantiation
+     */
+    @Benchmark
+    public BenchmarkPlugin reflective() throws ReflectiveOperationException {
+        return reflectiveLoader.loadClass(className).asSubclass(BenchmarkPlugin.class).getConstructor().newInstance();
+    }
+
+    /**
+     * The {@code PluginLoader#load(String)} with the cached constructor handle.
+     *
+     * @return new plug-in instance
+     */
+    @Benchmark
+    public BenchmarkPlugin cachedHandle() {
+        return loader.load(NAME);
+    }
+
+    /**
+     * Lower bound.
+     *
+     * @return new plug-in instance
+     */
+    @Benchmark
+    public BenchmarkPlugin direct() {
+        return new BenchmarkPlugin.Direct();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import jp.mydns.projectk.plugin.PluginLoader;
+import jp.mydns.projectk.plugin.impl.HistogramMetricsSink;
+import jp.mydns.projectk.plugin.impl.InstrumentedPluginLoader;
+import jp.mydns.projectk.plugin.impl.PluginLoaderImpl;
+import jp.mydns.projectk.plugin.impl.PluginStorageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the per call overhead of the {@code InstrumentedPluginLoader}. Compares a call of the raw plug-in
+ * instance with a call through the proxy recording to a no-op sink and to the {@code HistogramMetricsSink}. A call
+ * through the proxy reads the clock twice, so the {@code nanoTime} is the reference of the budget on the host.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark {
+
+    private static final String NAME = "InstrumentedPlugin";
+
+    private Path dir;
+    private PluginLoader<BenchmarkPlugin> loader;
+    private BenchmarkPlugin raw;
+    private BenchmarkPlugin noop;
+    private BenchmarkPlugin histogram;
+    private int arg;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        dir = Files.createTempDirectory("plugins");
+        SyntheticPlugins.write(dir, List.of(NAME));
+
+        loader = new PluginLoaderImpl<>(BenchmarkPlugin.class, new PluginStorageImpl(dir));
+        raw = loader.load(NAME);
+        noop = new InstrumentedPluginLoader<>(BenchmarkPlugin.class, loader, (p, m) -> (n, f) -> {
+        }).load(NAME);
+        histogram = new InstrumentedPluginLoader<>(BenchmarkPlugin.class, loader, new HistogramMetricsSink())
+                .load(NAME);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        loader.close();
+        SyntheticPlugins.delete(dir);
+    }
+
+    /**
+     * Call the raw plug-in instance.
+     *
+     * @return result
+     */
+    @Benchmark
+    public int raw() {
+        return raw.work(arg++);
+    }
+
+    /**
+     * Read the clock once.
+     *
+     * @return current time in nanoseconds
+     */
+    @Benchmark
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Call through the proxy, recording to a no-op sink.
+     *
+     * @return result
+     */
+    @Benchmark
+    public int proxyNoop() {
+        return noop.work(arg++);
+    }
+
+    /**
+     * Call through the proxy, recording to the {@code HistogramMetricsSink}.
+     *
+     * @return result
+     */
+    @Benchmark
+    public int proxyHistogram() {
+        return histogram.work(arg++);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import jp.mydns.projectk.plugin.PluginLoader;
+import jp.mydns.projectk.plugin.impl.PluginLoaderImpl;
+import jp.mydns.projectk.plugin.impl.PluginStorageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark of the {@link PluginLoader#load(String)} and {@link PluginLoader#stream()}.
+ * <ul>
+ * <li>{@code loadCold} loads a plug-in from a new plug-in loader, so the class loader is created, the class is defined
+ * and the constructor is resolved.</li>
+ * <li>{@code loadWarm} loads a random plug-in whose class has already been loaded.</li>
+ * <li>{@code loadConcurrent} is same as the {@code loadWarm} by all available processors. Override the thread count
+ * by {@code -t} to see the scalability.</li>
+ * <li>{@code stream} iterates all plug-in suppliers.</li>
+ * </ul>
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int plugins;
+
+    private Path dir;
+    private PluginStorageImpl storage;
+    private PluginLoader<BenchmarkPlugin> warmLoader;
+    private List<String> names;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        dir = Files.createTempDirectory("plugins");
+        names = SyntheticPlugins.names(plugins);
+        SyntheticPlugins.write(dir, names);
+
+        storage = new PluginStorageImpl(dir);
+        warmLoader = new PluginLoaderImpl<>(BenchmarkPlugin.class, storage);
+        names.forEach(warmLoader::load);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        warmLoader.close();
+        SyntheticPlugins.delete(dir);
+    }
+
+    /**
+     * Per invocation plug-in loader for the cold load.
+     */
+    @State(Scope.Thread)
+    public static class Cold {
+
+        PluginLoader<BenchmarkPlugin> loader;
+        String name;
+
+        @Setup(Level.Invocation)
+        public void setUp(LoadBenchmark b) {
+            loader = new PluginLoaderImpl<>(BenchmarkPlugin.class, b.storage);
+            name = b.randomName();
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            loader.close();
+        }
+    }
+
+    private String randomName() {
+        return names.get(ThreadLocalRandom.current().nextInt(names.size()));
+    }
+
+    /**
+     * Load a plug-in whose class is not loaded yet.
+     *
+     * @param cold new plug-in loader
+     * @return new plug-in instance
+     */
+    @Benchmark
+    public BenchmarkPlugin loadCold(Cold cold) {
+        return cold.loader.load(cold.name);
+    }
+
+    /**
+     * Load a plug-in whose class is already loaded.
+     *
+     * @return new plug-in instance
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public BenchmarkPlugin loadWarm() {
+        return warmLoader.load(randomName());
+    }
+
+    /**
+     * Load a plug-in whose class is already loaded, from all available processors.
+     *
+     * @return new plug-in instance
+     */
+    @Benchmark
+    @Threads(Threads.MAX)
+    @BenchmarkMode(Mode.Throughput)
+    public BenchmarkPlugin loadConcurrent() {
+        return warmLoader.load(randomName());
+    }
+
+    /**
+     * Iterate all plug-in suppliers.
+     *
+     * @param bh the {@code Blackhole}
+     */
+    @Benchmark
+    public void stream(Blackhole bh) {
+        warmLoader.stream().map(Map.Entry::getKey).forEach(bh::consume);
+    }
+
+    /**
+     * Iterate all plug-in suppliers and get the plug-in.
+     *
+     * @param bh the {@code Blackhole}
+     */
+    @Benchmark
+    public void streamAndGet(Blackhole bh) {
+        warmLoader.stream().map(Map.Entry::getValue).map(Supplier::get).forEach(bh::consume);
+    }
+}
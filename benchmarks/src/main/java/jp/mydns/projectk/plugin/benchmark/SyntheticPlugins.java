@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ * Generator of synthetic plug-in jar files. Each plug-in is compiled from a generated source that implements the
+ * {@link BenchmarkPlugin}, so its classes exist only in its own jar file. A plug-in can have a library jar in its
+ * library directory, that is filled with incompressible resources.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+final class SyntheticPlugins {
+
+    /**
+     * Package name of the generated plug-in classes.
+     */
+    static final String PACKAGE = "jp.mydns.projectk.plugin.benchmark.gen";
+
+    private SyntheticPlugins() {
+    }
+
+    /**
+     * Returns plug-in names {@code SyntheticPlugin0} to {@code SyntheticPlugin<count - 1>}.
+     *
+     * @param count number of plug-ins
+     * @return plug-in names
+     */
+    static List<String> names(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "SyntheticPlugin" + i).toList();
+    }
+
+    /**
+     * Write plug-in jar files named {@code <name>.jar} into the {@code dir}.
+     *
+     * @param dir output directory
+     * @param names plug-in names. It is used as simple class name of the main class.
+     * @throws UncheckedIOException if occurs I/O error
+     * @throws IllegalStateException if compilation failed
+     */
+    static void write(Path dir, List<String> names) {
+        write(dir, names, 0);
+    }
+
+    /**
+     * Write plug-in jar files named {@code <name>.jar} into the {@code dir}, with a library jar of varying size. The
+     * library size of the i-th plug-in is {@code maxLibraryKiB * (i % 4) / 3} KiB, so sizes of zero, one third, two
+     * thirds and the maximum are mixed. No library jar is written for the size zero.
+     *
+     * @param dir output directory
+     * @param names plug-in names. It is used as simple class name of the main class.
+     * @param maxLibraryKiB maximum size of the library jar in KiB
+     * @throws UncheckedIOException if occurs I/O error
+     * @throws IllegalStateException if compilation failed
+     */
+    static void write(Path dir, List<String> names, int maxLibraryKiB) {
+
+        try {
+
+            Path src = Files.createTempDirectory("plugin-src");
+            Path classes = Files.createTempDirectory("plugin-classes");
+            Path pkgDir = Files.createDirectories(src.resolve(PACKAGE.replace('.', '/')));
+
+            List<String> files = new ArrayList<>();
+            for (String name : names) {
+                Path file = pkgDir.resolve(name + ".java");
+                Files.writeString(file, source(name));
+                files.add(file.toString());
+            }
+
+            compile(classes, files);
+
+            Files.createDirectories(dir);
+            for (int i = 0; i < names.size(); i++) {
+
+                String name = names.get(i);
+                String entry = PACKAGE.replace('.', '/') + "/" + name + ".class";
+                jar(dir.resolve(name + ".jar"), PACKAGE + "." + name, entry, Files.readAllBytes(classes.resolve(entry)));
+
+                int libraryKiB = maxLibraryKiB * (i % 4) / 3;
+                if (libraryKiB > 0) {
+                    library(Files.createDirectories(dir.resolve(name)).resolve(name + "-lib.jar"), libraryKiB, i);
+                }
+            }
+
+            delete(src);
+            delete(classes);
+
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String source(String name) {
+        return """
+               package %s;
+
+               public class %s implements jp.mydns.projectk.plugin.benchmark.BenchmarkPlugin {
+
+                   @Override
+                   public int work(int arg) {
+                       return arg + %d;
+                   }
+
+                   @Override
+                   public String getAbout() {
+                       return "Synthetic plug-in %s";
+                   }
+
+                   @Override
+                   public String getVersion() {
+                       return "1.0.0";
+                   }
+               }
+               """.formatted(PACKAGE, name, name.hashCode(), name);
+    }
+
+    private static void compile(Path out, List<String> files) {
+
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+
+        if (javac == null) {
+            throw new IllegalStateException("A JDK is required to generate the plug-ins.");
+        }
+
+        List<String> args = new ArrayList<>(List.of("-nowarn", "-d", out.toString(),
+                "-cp", System.getProperty("java.class.path")));
+        args.addAll(files);
+
+        if (javac.run(null, null, null, args.toArray(String[]::new)) != 0) {
+            throw new IllegalStateException("Failed to compile the plug-ins.");
+        }
+    }
+
+    private static void jar(Path jar, String mainClass, String entry, byte[] bytes) throws IOException {
+
+        Manifest mf = new Manifest();
+        mf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        mf.getMainAttributes().put(Attributes.Name.MAIN_CLASS, mainClass);
+
+        try (OutputStream out = Files.newOutputStream(jar); var j = new JarOutputStream(out, mf)) {
+            j.putNextEntry(new JarEntry(entry));
+            j.write(bytes);
+            j.closeEntry();
+        }
+    }
+
+    private static void library(Path jar, int kib, long seed) throws IOException {
+
+        Random random = new Random(seed);
+        byte[] bytes = new byte[1024];
+
+        try (OutputStream out = Files.newOutputStream(jar); var j = new JarOutputStream(out)) {
+            for (int i = 0; i < kib; i++) {
+                random.nextBytes(bytes);
+                j.putNextEntry(new JarEntry("lib/resource%d.bin".formatted(i)));
+                j.write(bytes);
+                j.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Delete the file or directory recursively.
+     *
+     * @param path file or directory
+     * @throws IOException if occurs I/O error
+     */
+    static void delete(Path path) throws IOException {
+        try (Stream<Path> s = Files.walk(path)) {
+            for (Path p : s.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import jp.mydns.projectk.plugin.PluginLoader;
+import jp.mydns.projectk.plugin.impl.JarVerification;
+import jp.mydns.projectk.plugin.impl.PluginLoaderImpl;
+import jp.mydns.projectk.plugin.impl.PluginLoaderOptions;
+import jp.mydns.projectk.plugin.impl.PluginStorageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the {@link JarVerification} policies. A plug-in is loaded from a new plug-in loader, so its jar files
+ * are opened, and a resource of its library jar is read. The jar files are signed if {@code signed} is {@code true}.
+ * <p>
+ * The {@code ONCE} policy verifies a jar file in the warm-up and records its hash in memory, so the measurement shows
+ * the later opens of the unchanged jar files.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerificationBenchmark {
+
+    @Param({"ALWAYS", "ONCE"})
+    public JarVerification verification;
+
+    @Param({"false", "true"})
+    public boolean signed;
+
+    private Path dir;
+    private PluginStorageImpl storage;
+    private PluginLoaderOptions options;
+    private List<String> names;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+
+        dir = Files.createTempDirectory("plugins");
+        names = SyntheticPlugins.names(16);
+        SyntheticPlugins.write(dir, names, 256);
+
+        if (signed) {
+            sign(dir);
+        }
+
+        // Note: A jar file changed just now is copied on each open by the ONCE policy, so wait until it settles.
+        Thread.sleep(2500);
+
+        storage = new PluginStorageImpl(dir);
+        options = PluginLoaderOptions.builder().withJarVerification(verification).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticPlugins.delete(dir);
+    }
+
+    private static void sign(Path dir) throws IOException, InterruptedException {
+
+        Path keyStore = dir.resolve("keystore.p12");
+        run("keytool", "-genkeypair", "-keystore", keyStore.toString(), "-storepass", "changeit", "-alias", "bench",
+                "-keyalg", "EC", "-dname", "CN=bench", "-validity", "1");
+
+        List<Path> jars;
+        try (Stream<Path> s = Files.walk(dir)) {
+            jars = s.filter(p -> p.toString().endsWith(".jar")).toList();
+        }
+
+        for (Path jar : jars) {
+            run("jarsigner", "-keystore", keyStore.toString(), "-storepass", "changeit", jar.toString(), "bench");
+        }
+
+        Files.delete(keyStore);
+    }
+
+    private static void run(String tool, String... args) throws IOException, InterruptedException {
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", tool).toString());
+        command.addAll(List.of(args));
+
+        Process p = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+
+        if (p.waitFor() != 0) {
+            throw new IllegalStateException("Failed to run the %s.".formatted(tool));
+        }
+    }
+
+    /**
+     * Per invocation plug-in loader.
+     */
+    @State(Scope.Thread)
+    public static class Cold {
+
+        PluginLoader<BenchmarkPlugin> loader;
+        String name;
+
+        @Setup(Level.Invocation)
+        public void setUp(VerificationBenchmark b) {
+            loader = new PluginLoaderImpl<>(BenchmarkPlugin.class, b.storage, b.options);
+            name = b.names.get(ThreadLocalRandom.current().nextInt(b.names.size()));
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            loader.close();
+        }
+    }
+
+    /**
+     * Load a plug-in from a new plug-in loader, and read a resource of its library jar file if it has one.
+     *
+     * @param cold new plug-in loader
+     * @return bytes of the resource, or {@code 0} if none
+     * @throws IOException if occurs I/O error
+     */
+    @Benchmark
+    public int loadCold(Cold cold) throws IOException {
+
+        var resource = cold.loader.load(cold.name).getClass().getClassLoader().getResourceAsStream(
+                "lib/resource0.bin");
+
+        if (resource == null) {
+            return 0;
+        }
+
+        try (resource) {
+            return resource.readAllBytes().length;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the plug-in name lookup. Compares the {@code TreeMap} with {@link String#CASE_INSENSITIVE_ORDER} that
+ * was used until 1.0.0 with the {@code CaseInsensitiveIndex}. Lookups use mixed case names, one in ten misses.
+ * <p>
+ * It is in the package of the implementation to access the package-private index. Run it with increasing thread
+ * counts to see the scalability, e.g. {@code -t 1}, {@code -t 4} and {@code -t 16}.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int size;
+
+    private Map<String, Object> treeMap;
+    private CaseInsensitiveIndex<Object> index;
+    private String[] names;
+
+    @Setup
+    public void setUp() {
+
+        SortedMap<String, Object> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < size; i++) {
+            map.put("SyntheticPlugin" + i, new Object());
+        }
+
+        treeMap = map;
+        index = CaseInsensitiveIndex.of(map);
+
+        names = new String[1024];
+        for (int i = 0; i < names.length; i++) {
+            String name = "SyntheticPlugin" + (i % 10 == 0 ? size + i : i % size);
+            names[i] = i % 2 == 0 ? name : name.toUpperCase(Locale.ROOT);
+        }
+    }
+
+    @Benchmark
+    public Object treeMap() {
+        return treeMap.get(names[ThreadLocalRandom.current().nextInt(names.length)]);
+    }
+
+    @Benchmark
+    public Object index() {
+        return index.get(names[ThreadLocalRandom.current().nextInt(names.length)]);
+    }
+}
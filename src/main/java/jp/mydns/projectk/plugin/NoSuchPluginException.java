@@ -29,7 +29,7 @@ package jp.mydns.projectk.plugin;
  * Exception that no found a plug-in when load plug-in.
  *
  * @author riru
- * @version 1.0.0
+ * @version 1.1.0
  * @since 1.0.0
  */
 public class NoSuchPluginException extends PluginLoadingException {
@@ -48,4 +48,19 @@ public class NoSuchPluginException extends PluginLoadingException {
     public NoSuchPluginException(String reason) {
         super(reason);
     }
+
+    /**
+     * Construct with cause reason, optionally without the stack trace. An exception without the stack trace is cheap
+     * to construct, for callers that often probe names which may not exist.
+     *
+     * @param reason reason that caused this exception. Please do not include confidential information as it may be
+     * recorded in public logs.
+     * @param writableStackTrace {@code false} if the stack trace is not filled in
+     * @throws NullPointerException if {@code reason} is {@code null}
+     * @throws IllegalArgumentException if {@code reason} is blank
+     * @since 1.1.0
+     */
+    public NoSuchPluginException(String reason, boolean writableStackTrace) {
+        super(reason, writableStackTrace);
+    }
 }
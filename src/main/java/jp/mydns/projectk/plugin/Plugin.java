@@ -44,7 +44,7 @@ package jp.mydns.projectk.plugin;
  * plug-in. The only exception is when a thread is interrupted, which must throw the {@link InterruptedException}.
  *
  * @author riru
- * @version 1.0.0
+ * @version 1.1.0
  * @since 1.0.0
  */
 public interface Plugin {
@@ -64,4 +64,15 @@ public interface Plugin {
      * @since 1.0.0
      */
     String getVersion();
+
+    /**
+     * Warm up the plug-in before it serves the first request, e.g. run the hot paths with dummy input so that they are
+     * loaded and compiled. Called by {@link PluginLoader#warmUp(java.util.Collection, boolean,
+     * java.util.concurrent.Executor)}. The default implementation does nothing.
+     *
+     * @throws PluginExecutionException if failed warm-up
+     * @since 1.1.0
+     */
+    default void warmUp() {
+    }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Indicates that failed load some of the plug-ins requested together. The failure of each plug-in is kept by its name,
+ * and also added as a suppressed exception.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+public class PluginBatchLoadingException extends PluginLoadingException {
+
+    private static final long serialVersionUID = 3716082615364911574L;
+
+    private final Map<String, RuntimeException> failures;
+
+    /**
+     * Construct with the failures by plug-in name.
+     *
+     * @param failures failures by plug-in name. It must not be empty.
+     * @throws NullPointerException if {@code failures} is {@code null}
+     * @throws IllegalArgumentException if {@code failures} is empty
+     * @since 1.1.0
+     */
+    public PluginBatchLoadingException(Map<String, ? extends RuntimeException> failures) {
+
+        super("Failed to load plug-ins %s.".formatted(failures.keySet()));
+
+        if (failures.isEmpty()) {
+            throw new IllegalArgumentException("Failures are required.");
+        }
+
+        this.failures = Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+        this.failures.values().forEach(this::addSuppressed);
+
+    }
+
+    /**
+     * Get the failures by plug-in name.
+     *
+     * @return failures by plug-in name, in the requested order
+     * @since 1.1.0
+     */
+    public Map<String, RuntimeException> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A lease of a plug-in instance obtained from the {@link PluginLoader#lease(java.lang.String)}. While a lease is open,
+ * the plug-in loader does not close the class loader of the plug-in. Closing a lease returns the instance to the
+ * plug-in loader, and closing it more than once has no effect. The instance must not be used after closing.
+ *
+ * @param <T> plug-in interface type
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+public interface PluginLease<T extends Plugin> extends AutoCloseable {
+
+    /**
+     * Get the leased plug-in instance.
+     *
+     * @return plug-in instance
+     * @since 1.1.0
+     */
+    T get();
+
+    /**
+     * Return the plug-in instance to the plug-in loader.
+     *
+     * @since 1.1.0
+     */
+    @Override
+    void close();
+
+    /**
+     * Returns a lease of the plug-in instance, that runs {@code onClose} once when first closed.
+     *
+     * @param <T> plug-in interface type
+     * @param plugin plug-in instance
+     * @param onClose action that ends the lease
+     * @return new lease
+     * @throws NullPointerException if any argument is {@code null}
+     * @since 1.1.0
+     */
+    static <T extends Plugin> PluginLease<T> of(T plugin, Runnable onClose) {
+
+        Objects.requireNonNull(plugin);
+        Objects.requireNonNull(onClose);
+        AtomicBoolean closed = new AtomicBoolean();
+
+        return new PluginLease<>() {
+
+            @Override
+            public T get() {
+                return plugin;
+            }
+
+            @Override
+            public void close() {
+                if (closed.compareAndSet(false, true)) {
+                    onClose.run();
+                }
+            }
+        };
+
+    }
+}
@@ -25,7 +25,20 @@
  */
 package jp.mydns.projectk.plugin;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -39,7 +52,7 @@ import java.util.stream.Stream;
  *
  * @param <T> plug-in interface type
  * @author riru
- * @version 1.0.0
+ * @version 1.1.0
  * @since 1.0.0
  */
 public interface PluginLoader<T extends Plugin> extends AutoCloseable {
@@ -53,7 +66,8 @@ public interface PluginLoader<T extends Plugin> extends AutoCloseable {
     void close();
 
     /**
-     * Load one plug-in by specified name.
+     * Load one plug-in by specified name. Whether a new instance is returned or not depends on the {@link PluginScope}
+     * of the plug-in.
      * <p>
      * A plug-in can be unloaded when all of the following three conditions are met. When a plug-in becomes can unload,
      * jar file is completely freed and can be modified or deleted. Whether it is actually unloaded or not depends on
@@ -74,6 +88,143 @@ public interface PluginLoader<T extends Plugin> extends AutoCloseable {
      */
     T load(String name);
 
+    /**
+     * Find one plug-in by specified name. Same as the {@link #load(java.lang.String)} except that a missing plug-in is
+     * returned as empty instead of the {@link NoSuchPluginException}. An implementation should look up the name
+     * without constructing any exception.
+     *
+     * @param name plug-in name. It case insensitive.
+     * @return loaded plug-in. Empty if no found a plug-in.
+     * @throws NullPointerException if {@code name} is {@code null}
+     * @throws PluginLoadingException if an error occurs while plug-in loading
+     * @since 1.1.0
+     */
+    default Optional<T> find(String name) {
+        try {
+            return Optional.of(load(name));
+        } catch (NoSuchPluginException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Lease one plug-in by specified name. Same as the {@link #load(java.lang.String)} except that the instance is
+     * returned by closing the lease. An implementation does not close the class loader of a plug-in while its leases
+     * are open, so a plug-in in use keeps working even after the plug-in loader has been closed.
+     *
+     * @param name plug-in name. It case insensitive.
+     * @return new lease of the loaded plug-in
+     * @throws NullPointerException if {@code name} is {@code null}
+     * @throws NoSuchPluginException if no found a plug-in
+     * @throws PluginLoadingException if an error occurs while plug-in loading, or the plug-in loader has been closed
+     * @since 1.1.0
+     */
+    default PluginLease<T> lease(String name) {
+        T plugin = load(name);
+        return PluginLease.of(plugin, () -> release(plugin));
+    }
+
+    /**
+     * Load one plug-in asynchronously on the {@link ForkJoinPool#commonPool()}. Same as the
+     * {@link #load(java.lang.String)} except that it does not block.
+     *
+     * @param name plug-in name. It case insensitive.
+     * @return future of the loaded plug-in. It completes exceptionally with the {@link NoSuchPluginException} or the
+     * {@link PluginLoadingException} if failed.
+     * @throws NullPointerException if {@code name} is {@code null}
+     * @since 1.1.0
+     */
+    default CompletableFuture<T> loadAsync(String name) {
+        return loadAsync(name, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Load one plug-in asynchronously on the {@code executor}. Same as the {@link #load(java.lang.String)} except that
+     * it does not block.
+     *
+     * @param name plug-in name. It case insensitive.
+     * @param executor executor that loads the plug-in
+     * @return future of the loaded plug-in. It completes exceptionally with the {@link NoSuchPluginException} or the
+     * {@link PluginLoadingException} if failed.
+     * @throws NullPointerException if any argument is {@code null}
+     * @since 1.1.0
+     */
+    default CompletableFuture<T> loadAsync(String name, Executor executor) {
+        Objects.requireNonNull(name);
+        return CompletableFuture.supplyAsync(() -> load(name), Objects.requireNonNull(executor));
+    }
+
+    /**
+     * Load the plug-ins in parallel on the {@code executor}. Duplicate names are loaded once.
+     * <p>
+     * The returned future completes when all plug-ins have been tried, with the loaded plug-ins in the order of
+     * {@code names}. If any plug-in is not found or failed then each loaded plug-in is released by the
+     * {@link #release(Plugin)}, so that no pooled instance is kept by the failed batch, and it completes exceptionally
+     * with the {@link PluginBatchLoadingException} that has the failure of each plug-in.
+     * <p>
+     * If the {@code executor} rejects a load, each plug-in of the loads already started is released when it is loaded,
+     * and the rejection is thrown.
+     *
+     * @param names plug-in names. It case insensitive.
+     * @param executor executor that loads each plug-in
+     * @return future of the loaded plug-ins by name
+     * @throws NullPointerException if any argument or any name is {@code null}
+     * @throws RejectedExecutionException if the {@code executor} rejects a load
+     * @since 1.1.0
+     */
+    default CompletableFuture<Map<String, T>> loadAll(Collection<String> names, Executor executor) {
+
+        Objects.requireNonNull(executor);
+        List<String> targets = List.copyOf(new LinkedHashSet<>(names));
+        List<CompletableFuture<T>> futures = new ArrayList<>(targets.size());
+
+        try {
+            for (String n : targets) {
+                futures.add(loadAsync(n, executor));
+            }
+        } catch (RuntimeException ex) {
+            // Note: A load already started may complete later, so each one is released on its completion.
+            futures.forEach(f -> f.thenAccept(this::release));
+            throw ex;
+        }
+
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).handle((v, ignore) -> {
+
+            Map<String, T> loaded = new LinkedHashMap<>();
+            Map<String, RuntimeException> failures = new LinkedHashMap<>();
+
+            for (int i = 0; i < targets.size(); i++) {
+                try {
+                    loaded.put(targets.get(i), futures.get(i).join());
+                } catch (RuntimeException ex) {
+                    failures.put(targets.get(i),
+                            ex instanceof CompletionException && ex.getCause() instanceof RuntimeException r ? r : ex);
+                }
+            }
+
+            if (!failures.isEmpty()) {
+
+                PluginBatchLoadingException failed = new PluginBatchLoadingException(failures);
+
+                // Note: Release every loaded plug-in, even if releasing one of them fails.
+                for (T plugin : loaded.values()) {
+                    try {
+                        release(plugin);
+                    } catch (RuntimeException ex) {
+                        failed.addSuppressed(ex);
+                    }
+                }
+
+                throw failed;
+
+            }
+
+            return loaded;
+
+        });
+
+    }
+
     /**
      * Returns a stream of plug-in suppliers. The stream contains all plug-in known to this plug-in loader instance.
      * Entry key represents a plug-in name, and entry value is plug-in instance supplier.
@@ -82,4 +233,88 @@ public interface PluginLoader<T extends Plugin> extends AutoCloseable {
      * @since 1.0.0
      */
     Stream<Map.Entry<String, Supplier<T>>> stream();
+
+    /**
+     * Return a plug-in instance to this loader. An instance of the {@link PluginScope#POOLED} plug-in is returned to
+     * the pool. Otherwise nothing happens. The instance must not be used after releasing.
+     *
+     * @param plugin plug-in instance obtained from this loader
+     * @throws NullPointerException if {@code plugin} is {@code null}
+     * @since 1.1.0
+     */
+    default void release(T plugin) {
+        Objects.requireNonNull(plugin);
+    }
+
+    /**
+     * Warm up the plug-ins in parallel on the {@code executor}. Each plug-in is loaded, and then its
+     * {@link Plugin#warmUp()} is called if {@code invokeHooks} is {@code true}. An implementation may also load all
+     * classes in the plug-in jar files in advance.
+     * <p>
+     * The returned future completes when all plug-ins have been warmed up, with the elapsed time of each plug-in in the
+     * order of {@code names}. If any plug-in is not found or failed then it completes exceptionally with that failure.
+     * <p>
+     * If the {@code executor} rejects a warm-up, the rejection is thrown. The warm-ups already started still release
+     * their plug-ins when they end, and the rejection does not wait for them.
+     *
+     * @param names plug-in names. It case insensitive.
+     * @param invokeHooks {@code true} if call the {@link Plugin#warmUp()}
+     * @param executor executor that runs the warm-up of each plug-in
+     * @return future of the elapsed time by plug-in name
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws RejectedExecutionException if the {@code executor} rejects a warm-up
+     * @since 1.1.0
+     */
+    default CompletableFuture<Map<String, Duration>> warmUp(Collection<String> names, boolean invokeHooks,
+            Executor executor) {
+
+        Objects.requireNonNull(executor);
+        List<String> targets = List.copyOf(names);
+        List<CompletableFuture<Duration>> futures = new ArrayList<>(targets.size());
+
+        // Note: Each warm-up step releases its own plug-in, so nothing is left to release if a step is rejected.
+        for (String n : targets) {
+            futures.add(CompletableFuture.supplyAsync(() -> warmUp(n, invokeHooks), executor));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).thenApply(v -> {
+            Map<String, Duration> timings = new LinkedHashMap<>();
+            for (int i = 0; i < targets.size(); i++) {
+                timings.put(targets.get(i), futures.get(i).join());
+            }
+            return timings;
+        });
+
+    }
+
+    /**
+     * Warm up one plug-in. The plug-in is loaded, and then its {@link Plugin#warmUp()} is called if
+     * {@code invokeHooks} is {@code true}. It is the step of the
+     * {@link #warmUp(java.util.Collection, boolean, java.util.concurrent.Executor)} for each plug-in, and an
+     * implementation may override it to prepare the plug-in further.
+     *
+     * @param name plug-in name. It case insensitive.
+     * @param invokeHooks {@code true} if call the {@link Plugin#warmUp()}
+     * @return elapsed time
+     * @throws NullPointerException if {@code name} is {@code null}
+     * @throws NoSuchPluginException if no found a plug-in
+     * @throws PluginLoadingException if an error occurs while plug-in loading
+     * @since 1.1.0
+     */
+    default Duration warmUp(String name, boolean invokeHooks) {
+
+        long start = System.nanoTime();
+        T plugin = load(name);
+
+        try {
+            if (invokeHooks) {
+                plugin.warmUp();
+            }
+        } finally {
+            release(plugin);
+        }
+
+        return Duration.ofNanos(System.nanoTime() - start);
+
+    }
 }
@@ -31,7 +31,7 @@ import jp.mydns.projectk.plugin.impl.AbstractPluginException;
  * Indicates that failed execute plug-in.
  *
  * @author riru
- * @version 1.0.0
+ * @version 1.1.0
  * @since 1.0.0
  */
 public class PluginLoadingException extends AbstractPluginException {
@@ -50,4 +50,18 @@ public class PluginLoadingException extends AbstractPluginException {
     public PluginLoadingException(String reason) {
         super(reason);
     }
+
+    /**
+     * Construct with cause reason, optionally without the stack trace.
+     *
+     * @param reason reason that caused this exception. Please do not include confidential information as it may be
+     * recorded in public logs.
+     * @param writableStackTrace {@code false} if the stack trace is not filled in
+     * @throws NullPointerException if {@code reason} is {@code null}
+     * @throws IllegalArgumentException if {@code reason} is blank
+     * @since 1.1.0
+     */
+    protected PluginLoadingException(String reason, boolean writableStackTrace) {
+        super(reason, writableStackTrace);
+    }
 }
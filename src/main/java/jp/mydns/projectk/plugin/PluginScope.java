@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin;
+
+import java.util.Locale;
+
+/**
+ * Instance scope of a plug-in. It decides whether {@link PluginLoader#load(java.lang.String)} returns a new instance or
+ * a shared one.
+ * <p>
+ * A plug-in declares its default scope by a {@code Plugin-Scope} attribute in the {@code META-INF/MANIFEST.MF}, with a
+ * value of {@code prototype}, {@code singleton}, {@code thread-local} or {@code pooled}. A plug-in that does not
+ * declare it is {@link #PROTOTYPE}. A plug-in that is shared by any scope other than {@code PROTOTYPE} must be
+ * thread-safe or must not keep a state between calls.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+public enum PluginScope {
+
+    /**
+     * A new instance for each load. This is the default.
+     *
+     * @since 1.1.0
+     */
+    PROTOTYPE,
+    /**
+     * A single instance per plug-in loader.
+     *
+     * @since 1.1.0
+     */
+    SINGLETON,
+    /**
+     * A single instance per thread and plug-in loader. An instance is released when the thread ends or the plug-in
+     * loader is closed, even if the thread is still alive, such as a worker of a thread pool.
+     *
+     * @since 1.1.0
+     */
+    THREAD_LOCAL,
+    /**
+     * Instances are borrowed from a bounded pool. A borrowed instance should be returned by
+     * {@link PluginLoader#release(Plugin)}, otherwise a new instance is created for the next borrowing. Releasing an
+     * instance that is already in the pool has no effect. Pooled instances are released when the plug-in loader is
+     * closed.
+     *
+     * @since 1.1.0
+     */
+    POOLED;
+
+    /**
+     * Name of the manifest attribute that declares the scope of a plug-in.
+     *
+     * @since 1.1.0
+     */
+    public static final String ATTRIBUTE_NAME = "Plugin-Scope";
+
+    /**
+     * Returns the scope represented by a value of the {@code Plugin-Scope} manifest attribute. It case insensitive.
+     *
+     * @param value attribute value. e.g. {@code thread-local}
+     * @return plug-in scope
+     * @throws NullPointerException if {@code value} is {@code null}
+     * @throws IllegalArgumentException if {@code value} is unknown scope
+     * @since 1.1.0
+     */
+    public static PluginScope ofAttributeValue(String value) {
+        return valueOf(value.strip().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+}
@@ -35,7 +35,7 @@ import java.util.stream.Stream;
  * A collection of information required to load a single plug-in.
  *
  * @author riru
- * @version 1.0.0
+ * @version 1.1.0
  * @since 1.0.0
  */
 public interface PluginStorage {
@@ -52,7 +52,7 @@ public interface PluginStorage {
      * Information required to load a single plug-in.
      *
      * @author riru
-     * @version 1.0.0
+     * @version 1.1.0
      * @since 1.0.0
      */
     interface PluginLoadingSource {
@@ -72,5 +72,15 @@ public interface PluginStorage {
          * @since 1.0.0
          */
         URL[] getClassPath();
+
+        /**
+         * Get the default instance scope of the plug-in.
+         *
+         * @return plug-in scope. The default implementation returns {@link PluginScope#PROTOTYPE}.
+         * @since 1.1.0
+         */
+        default PluginScope getScope() {
+            return PluginScope.PROTOTYPE;
+        }
     }
 }
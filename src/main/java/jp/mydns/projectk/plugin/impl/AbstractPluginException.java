@@ -26,14 +26,12 @@
 package jp.mydns.projectk.plugin.impl;
 
 import java.util.Objects;
-import java.util.Optional;
-import static java.util.function.Predicate.not;
 
 /**
  * Abstract an exception implements for related plug-in.
  *
  * @author riru
- * @version 1.0.0
+ * @version 1.1.0
  * @since 1.0.0
  */
 public abstract class AbstractPluginException extends RuntimeException {
@@ -48,7 +46,31 @@ public abstract class AbstractPluginException extends RuntimeException {
      * @since 1.0.0
      */
     protected AbstractPluginException(String reason) {
-        super(Optional.of(Objects.requireNonNull(reason)).filter(not(String::isBlank))
-                .orElseThrow(() -> new IllegalArgumentException("A reason for the exception is required.")));
+        super(requireReason(reason));
+    }
+
+    /**
+     * Construct with cause reason, optionally without the stack trace. An exception without the stack trace is cheap
+     * to construct, and its cause is fixed to {@code null}.
+     *
+     * @param reason reason that caused this exception. Please do not include confidential information as it may be
+     * recorded in public logs.
+     * @param writableStackTrace {@code false} if the stack trace is not filled in
+     * @throws NullPointerException if {@code reason} is {@code null}
+     * @throws IllegalArgumentException if {@code reason} is blank
+     * @since 1.1.0
+     */
+    protected AbstractPluginException(String reason, boolean writableStackTrace) {
+        super(requireReason(reason), null, true, writableStackTrace);
+    }
+
+    private static String requireReason(String reason) {
+
+        if (Objects.requireNonNull(reason).isBlank()) {
+            throw new IllegalArgumentException("A reason for the exception is required.");
+        }
+
+        return reason;
+
     }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Writes files by replacing them. The content is written to a temporary file in the same directory, and then the
+ * temporary file is moved to the target atomically if the file system supports it. So a reader never sees a partly
+ * written file.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+final class AtomicFiles {
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * Write the file. The parent directories are created if they do not exist. If the {@code content} fails then the
+     * file is left unchanged.
+     *
+     * @param file target file
+     * @param content writer of the content to the temporary file
+     * @throws IOException if occurs I/O error, or by the {@code content}
+     * @since 1.1.0
+     */
+    static void write(Path file, Content content) throws IOException {
+
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), TEMPORARY_SUFFIX);
+
+        try {
+
+            content.writeTo(tmp);
+
+            try {
+                Files.move(tmp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, file, REPLACE_EXISTING);
+            }
+
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Writer of a file content.
+     *
+     * @since 1.1.0
+     */
+    @FunctionalInterface
+    interface Content {
+
+        /**
+         * Write the content to the temporary file.
+         *
+         * @param tmp temporary file
+         * @throws IOException if occurs I/O error
+         * @since 1.1.0
+         */
+        void writeTo(Path tmp) throws IOException;
+    }
+}
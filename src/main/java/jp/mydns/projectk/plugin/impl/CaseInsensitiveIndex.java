@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.stream.Stream;
+
+/**
+ * Immutable, hash-based and case-insensitive index of plug-in names.
+ * <p>
+ * Hash codes of the case-folded keys are computed once at construction, and a lookup is an open-addressing probe that
+ * folds the characters of the name in place. So a lookup does not allocate any object. Two names are the same if
+ * {@link String#equalsIgnoreCase(java.lang.String)} says so, that is the same rule as the
+ * {@link String#CASE_INSENSITIVE_ORDER}.
+ * <p>
+ * This class is immutable, and is safe for unsynchronized concurrent reads.
+ *
+ * @param <V> value type
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+final class CaseInsensitiveIndex<V> {
+
+    private static final CaseInsensitiveIndex<?> EMPTY = new CaseInsensitiveIndex<>(List.of());
+
+    private final String[] keys;
+    private final Object[] values;
+    private final int[] hashes;
+    private final int mask;
+    private final List<Map.Entry<String, V>> entries;
+
+    private CaseInsensitiveIndex(List<Map.Entry<String, V>> entries) {
+
+        int capacity = Integer.highestOneBit(Math.max(2, entries.size() * 2 - 1)) << 1;
+
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.hashes = new int[capacity];
+        this.mask = capacity - 1;
+        this.entries = entries;
+
+        for (Map.Entry<String, V> e : entries) {
+
+            int h = hash(e.getKey());
+            int i = h & mask;
+
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+
+            keys[i] = e.getKey();
+            values[i] = e.getValue();
+            hashes[i] = h;
+
+        }
+
+    }
+
+    /**
+     * Returns an empty index.
+     *
+     * @param <V> value type
+     * @return empty index
+     * @since 1.1.0
+     */
+    @SuppressWarnings("unchecked")
+    static <V> CaseInsensitiveIndex<V> empty() {
+        return (CaseInsensitiveIndex<V>) EMPTY;
+    }
+
+    /**
+     * Construct from a map ordered by {@link String#CASE_INSENSITIVE_ORDER}. Keys of the map must be unique ignoring
+     * case, so a {@code TreeMap} with that comparator is expected.
+     *
+     * @param <V> value type
+     * @param map source map
+     * @return new index
+     * @throws NullPointerException if {@code map} is {@code null}, or it contains {@code null} key or value
+     * @since 1.1.0
+     */
+    static <V> CaseInsensitiveIndex<V> of(SortedMap<String, ? extends V> map) {
+
+        List<Map.Entry<String, V>> entries = new ArrayList<>(map.size());
+        map.forEach((k, v) -> entries.add(Map.entry(k, v)));
+
+        return new CaseInsensitiveIndex<>(Collections.unmodifiableList(entries));
+
+    }
+
+    private static int hash(String s) {
+
+        int h = 0;
+
+        for (int i = 0, len = s.length(); i < len; i++) {
+            char c = s.charAt(i);
+            h = 31 * h + (c < 0x80 ? (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c)
+                    : Character.toLowerCase(Character.toUpperCase(c)));
+        }
+
+        // Spread the higher bits, because the table index uses the lower bits only.
+        return h ^ (h >>> 16);
+
+    }
+
+    /**
+     * Get a value by key ignoring case.
+     *
+     * @param key key
+     * @return value, or {@code null} if not found
+     * @throws NullPointerException if {@code key} is {@code null}
+     * @since 1.1.0
+     */
+    @SuppressWarnings("unchecked")
+    V get(String key) {
+
+        int h = hash(Objects.requireNonNull(key));
+
+        for (int i = h & mask;; i = (i + 1) & mask) {
+
+            String k = keys[i];
+
+            if (k == null) {
+                return null;
+            }
+
+            if (hashes[i] == h && k.equalsIgnoreCase(key)) {
+                return (V) values[i];
+            }
+
+        }
+
+    }
+
+    /**
+     * Returns a stream of all entries in the order of the source map.
+     *
+     * @return entry stream
+     * @since 1.1.0
+     */
+    Stream<Map.Entry<String, V>> stream() {
+        return entries.stream();
+    }
+
+    /**
+     * Get the number of entries.
+     *
+     * @return number of entries
+     * @since 1.1.0
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns all keys in the order of the source map.
+     *
+     * @return key stream
+     * @since 1.1.0
+     */
+    Stream<String> keys() {
+        return entries.stream().map(Map.Entry::getKey);
+    }
+
+    /**
+     * Returns all values in the order of the source map.
+     *
+     * @return value stream
+     * @since 1.1.0
+     */
+    Stream<V> values() {
+        return entries.stream().map(Map.Entry::getValue);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Tool for the dynamic CDS archive of plug-in classes.
+ * <p>
+ * The archive file is keyed by the Java VM version and the content hashes of all jar files in the plug-in storages,
+ * including library jar files. If the archive of the current plug-ins exists, the JVM options to use it are given,
+ * otherwise the JVM options to dump it at exit are given. The Java VM itself also validates the archive against the
+ * application class path, and ignores a mismatched archive.
+ * <p>
+ * Typical usage in a launcher script, together with the {@link PluginLoaderOptions.Builder#withClassDataDirectory}:
+ * <pre>{@code
+ * java $(java -cp k-plugin-mechanism.jar jp.mydns.projectk.plugin.impl.ClassDataArchive cds plugins) -jar app.jar
+ * }</pre>
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+public final class ClassDataArchive {
+
+    private static final int MAX_DEPTH = 2;
+    private static final int KEY_LENGTH = 32;
+
+    private ClassDataArchive() {
+    }
+
+    /**
+     * Print the JVM options of the dynamic CDS archive to the standard output. The archive directory is created if
+     * it does not exist.
+     *
+     * @param args archive directory, followed by plug-in storage directories
+     * @throws IOException if occurs I/O error
+     * @since 1.1.0
+     */
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 2) {
+            System.err.println("Usage: ClassDataArchive <archive-directory> <plug-in-storage>...");
+            System.exit(2);
+        }
+
+        Path archiveDirectory = Files.createDirectories(Path.of(args[0]));
+        Path[] storages = Arrays.stream(args).skip(1).map(Path::of).toArray(Path[]::new);
+
+        System.out.println(String.join(" ", jvmOptions(archiveDirectory, storages)));
+
+    }
+
+    /**
+     * Get the JVM options of the dynamic CDS archive for the plug-ins.
+     *
+     * @param archiveDirectory directory of the archive files
+     * @param storages plug-in storage directories
+     * @return {@code -XX:SharedArchiveFile} if the archive exists, otherwise {@code -XX:ArchiveClassesAtExit}
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws IOException if occurs I/O error
+     * @since 1.1.0
+     */
+    public static List<String> jvmOptions(Path archiveDirectory, Path... storages) throws IOException {
+
+        Path archive = archiveFile(archiveDirectory, storages);
+
+        return Files.isRegularFile(archive) ? List.of("-XX:SharedArchiveFile=" + archive)
+                : List.of("-XX:ArchiveClassesAtExit=" + archive);
+
+    }
+
+    /**
+     * Get the archive file for the plug-ins. It may not exist.
+     *
+     * @param archiveDirectory directory of the archive files
+     * @param storages plug-in storage directories
+     * @return archive file
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws IOException if occurs I/O error
+     * @since 1.1.0
+     */
+    public static Path archiveFile(Path archiveDirectory, Path... storages) throws IOException {
+
+        Objects.requireNonNull(archiveDirectory);
+        MessageDigest md = newDigest();
+        md.update(System.getProperty("java.vm.version").getBytes(StandardCharsets.UTF_8));
+
+        for (Path storage : storages) {
+            for (Path jar : jars(storage)) {
+                md.update(("\n" + storage.relativize(jar) + "\t" + ContentHashes.sha256(jar))
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        String key = HexFormat.of().formatHex(md.digest()).substring(0, KEY_LENGTH);
+
+        return archiveDirectory.toAbsolutePath().resolve("plugins-" + key + ".jsa");
+
+    }
+
+    private static List<Path> jars(Path storage) throws IOException {
+
+        if (!Files.isDirectory(storage)) {
+            return List.of();
+        }
+
+        try (Stream<Path> s = Files.walk(storage, MAX_DEPTH)) {
+            return s.filter(p -> p.getFileName().toString().endsWith(".jar")).filter(Files::isRegularFile).sorted()
+                    .toList();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform implementation is required to support SHA-256.
+            throw new IllegalStateException(ex);
+        }
+    }
+}
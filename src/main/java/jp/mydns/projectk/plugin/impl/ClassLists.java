@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Store of the class lists. A class list is a text file named {@code <hash>.classlist} that holds names of the classes
+ * loaded by a plug-in, one per line. The hash is the content hash of the plug-in jar file, so a class list is never
+ * applied to another version of the plug-in.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class ClassLists {
+
+    private static final String SUFFIX = ".classlist";
+    private static final Object LOCK = new Object();
+
+    private final Path dir;
+
+    /**
+     * Constructor.
+     *
+     * @param dir directory of the class lists
+     * @throws NullPointerException if {@code dir} is {@code null}
+     * @since 1.1.0
+     */
+    ClassLists(Path dir) {
+        this.dir = Objects.requireNonNull(dir);
+    }
+
+    /**
+     * Read the class list.
+     *
+     * @param hash content hash of the plug-in jar file
+     * @return class names. Empty if not recorded.
+     * @throws IOException if occurs I/O error
+     * @since 1.1.0
+     */
+    Set<String> read(String hash) throws IOException {
+        try {
+            return Set.copyOf(Files.readAllLines(dir.resolve(hash + SUFFIX), StandardCharsets.UTF_8).stream()
+                    .map(String::strip).filter(l -> !l.isEmpty()).toList());
+        } catch (NoSuchFileException ignore) {
+            return Set.of();
+        }
+    }
+
+    /**
+     * Merge class names into the class list. The file is rewritten atomically only if any name was added.
+     *
+     * @param hash content hash of the plug-in jar file
+     * @param classNames class names
+     * @throws IOException if occurs I/O error
+     * @since 1.1.0
+     */
+    void merge(String hash, Collection<String> classNames) throws IOException {
+
+        synchronized (LOCK) {
+
+            Set<String> merged = new TreeSet<>(read(hash));
+
+            if (!merged.addAll(classNames)) {
+                return;
+            }
+
+            AtomicFiles.write(dir.resolve(hash + SUFFIX), tmp -> Files.write(tmp, merged, StandardCharsets.UTF_8));
+        }
+    }
+}
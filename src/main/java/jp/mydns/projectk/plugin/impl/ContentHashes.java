@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.nio.file.attribute.FileTime;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Content hashes of files. A hash is computed once per file path, size and last modified time, and cached. The cache
+ * keeps the recently used files up to a fixed number, and the entry of a file is removed when the file is found to be
+ * deleted.
+ * <p>
+ * Since the cache trusts the size and the last modified time, a hash from it must not be used for a security decision.
+ * The {@link #stableSha256(Path)} also compares the file key and the status change time, which a rewrite in place can
+ * not keep, so its hash may be used for one.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+final class ContentHashes {
+
+    private static final String ALGORITHM = "SHA-256";
+    private static final int MAX_CACHED_FILES = 4096;
+    private static final long RACY_MILLIS = 2000;
+    private static final Map<Path, Entry> CACHE = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Entry> eldest) {
+            return size() > MAX_CACHED_FILES;
+        }
+    });
+
+    private ContentHashes() {
+    }
+
+    /**
+     * Get the SHA-256 hash of the file content.
+     *
+     * @param file file
+     * @return lower case hexadecimal hash
+     * @throws IOException if occurs I/O error
+     * @since 1.1.0
+     */
+    static String sha256(Path file) throws IOException {
+
+        Path key = file.toAbsolutePath();
+        BasicFileAttributes attrs;
+
+        try {
+            attrs = Files.readAttributes(key, BasicFileAttributes.class);
+        } catch (NoSuchFileException ex) {
+            CACHE.remove(key);
+            throw ex;
+        }
+
+        long size = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+
+        Entry e = CACHE.get(key);
+
+        if (e == null || e.size != size || e.lastModified != lastModified) {
+            e = new Entry(size, lastModified, digest(key), null);
+            CACHE.put(key, e);
+        }
+
+        return e.hash;
+
+    }
+
+    /**
+     * Get the SHA-256 hash of the file content, which was read while the file was unchanged. A cached hash is used only
+     * if the file key, size, last modified time and status change time of the file are all unchanged. Since a rewrite
+     * in place always updates the status change time, and it can not be set back, the hash tells the current content.
+     * <p>
+     * Returns empty if the file system does not provide the status change time, if the file was changed within the
+     * last two seconds, so that a following change may keep the same status change time, or if the file was changed
+     * while reading it.
+     *
+     * @param file file
+     * @return lower case hexadecimal hash, or empty if it can not be told
+     * @throws IOException if occurs I/O error
+     * @since 1.1.0
+     */
+    static Optional<String> stableSha256(Path file) throws IOException {
+
+        Path key = file.toAbsolutePath();
+        Stamp before = Stamp.of(key);
+
+        if (before == null || before.changed() > System.currentTimeMillis() - RACY_MILLIS) {
+            return Optional.empty();
+        }
+
+        Entry e = CACHE.get(key);
+
+        if (e != null && before.equals(e.stamp)) {
+            return Optional.of(e.hash);
+        }
+
+        String hash = digest(key);
+
+        if (!before.equals(Stamp.of(key))) {
+            return Optional.empty();
+        }
+
+        CACHE.put(key, new Entry(before.size(), before.lastModified(), hash, before));
+        return Optional.of(hash);
+
+    }
+
+    /**
+     * Remove the cached hash of the file. It is called when the file is deleted or rewritten.
+     *
+     * @param file file
+     * @since 1.1.0
+     */
+    static void evict(Path file) {
+        CACHE.remove(file.toAbsolutePath());
+    }
+
+    /**
+     * Compute the SHA-256 hash of the stream content.
+     *
+     * @param in input stream. It is read to the end but not closed.
+     * @return lower case hexadecimal hash
+     * @throws IOException if occurs I/O error
+     * @since 1.1.0
+     */
+    static String sha256(InputStream in) throws IOException {
+
+        MessageDigest md = newDigest();
+        byte[] buf = new byte[64 * 1024];
+
+        for (int n; (n = in.read(buf)) >= 0;) {
+            md.update(buf, 0, n);
+        }
+
+        return HexFormat.of().formatHex(md.digest());
+
+    }
+
+    private static String digest(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return sha256(in);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform implementation is required to support SHA-256.
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private record Entry(long size, long lastModified, String hash, Stamp stamp) {
+
+    }
+
+    /**
+     * Identity and times of a file.
+     */
+    private record Stamp(Object device, Object inode, long size, long lastModified, long changed) {
+
+        /**
+         * Read the stamp of the file.
+         *
+         * @return stamp, or {@code null} if the file system does not provide the status change time
+         */
+        static Stamp of(Path file) throws IOException {
+
+            Map<String, Object> attrs;
+
+            try {
+                attrs = Files.readAttributes(file, "unix:dev,ino,size,lastModifiedTime,ctime");
+            } catch (UnsupportedOperationException | IllegalArgumentException ignore) {
+                return null;
+            } catch (NoSuchFileException ex) {
+                CACHE.remove(file);
+                throw ex;
+            }
+
+            return new Stamp(attrs.get("dev"), attrs.get("ino"), (Long) attrs.get("size"),
+                    ((FileTime) attrs.get("lastModifiedTime")).toMillis(), ((FileTime) attrs.get("ctime")).toMillis());
+
+        }
+    }
+}
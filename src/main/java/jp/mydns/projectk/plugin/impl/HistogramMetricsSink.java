@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@code PluginMetricsSink} that keeps call counts, error counts and latency histograms in memory.
+ * <p>
+ * The histogram has log-linear buckets like the HdrHistogram. Values below 64 nanoseconds have their own buckets, and
+ * each power of two above them is divided into 32 buckets, so the relative error of a percentile is at most about 3%.
+ * Recording is an atomic increment of one bucket and does not allocate.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+public final class HistogramMetricsSink implements PluginMetricsSink {
+
+    private final Map<Key, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if any argument is {@code null}
+     * @since 1.1.0
+     */
+    @Override
+    public Recorder recorder(String pluginName, String methodName) {
+
+        Key key = new Key(Objects.requireNonNull(pluginName), Objects.requireNonNull(methodName));
+
+        return histograms.computeIfAbsent(key, k -> new Histogram());
+
+    }
+
+    /**
+     * Take a snapshot of all recorded metrics, ordered by plug-in name and method name. Invocations in progress may or
+     * may not be included.
+     *
+     * @return metrics
+     * @since 1.1.0
+     */
+    public List<Snapshot> snapshot() {
+        return histograms.entrySet().stream().map(e -> e.getValue().snapshot(e.getKey()))
+                .sorted(Comparator.comparing(Snapshot::pluginName).thenComparing(Snapshot::methodName)).toList();
+    }
+
+    /**
+     * Metrics of a plug-in method. Latencies are in nanoseconds, and zero if no call.
+     *
+     * @param pluginName plug-in name
+     * @param methodName method name
+     * @param calls number of calls
+     * @param errors number of calls that threw an exception
+     * @param p50 median latency
+     * @param p90 90th percentile latency
+     * @param p99 99th percentile latency
+     * @param p999 99.9th percentile latency
+     * @param max maximum latency
+     * @author riru
+     * @version 1.1.0
+     * @since 1.1.0
+     */
+    public record Snapshot(String pluginName, String methodName, long calls, long errors, long p50, long p90, long p99,
+            long p999, long max) {
+
+    }
+
+    private record Key(String pluginName, String methodName) {
+
+    }
+
+    /**
+     * Log-linear histogram.
+     */
+    static final class Histogram implements Recorder {
+
+        private static final int SUB_BITS = 5;
+        private static final int LINEAR = 1 << (SUB_BITS + 1);
+        private static final int HALF = 1 << SUB_BITS;
+        private static final int BUCKETS = LINEAR + (Long.SIZE - 1 - (SUB_BITS + 1)) * HALF;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder errors = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        @Override
+        public void record(long nanos, boolean failed) {
+
+            long v = Math.max(0, nanos);
+            counts.incrementAndGet(index(v));
+            max.accumulate(v);
+
+            if (failed) {
+                errors.increment();
+            }
+
+        }
+
+        static int index(long v) {
+
+            if (v < LINEAR) {
+                return (int) v;
+            }
+
+            int msb = Long.SIZE - 1 - Long.numberOfLeadingZeros(v);
+            int shift = msb - SUB_BITS;
+
+            return LINEAR + (msb - SUB_BITS - 1) * HALF + (int) (v >>> shift) - HALF;
+
+        }
+
+        static long highestValue(int index) {
+
+            if (index < LINEAR) {
+                return index;
+            }
+
+            int k = index - LINEAR;
+            int shift = k / HALF + 1;
+            long sub = k % HALF + HALF;
+
+            return ((sub + 1) << shift) - 1;
+
+        }
+
+        private Snapshot snapshot(Key key) {
+
+            long[] c = new long[BUCKETS];
+            long total = 0;
+
+            for (int i = 0; i < BUCKETS; i++) {
+                c[i] = counts.get(i);
+                total += c[i];
+            }
+
+            long m = max.get();
+
+            return new Snapshot(key.pluginName(), key.methodName(), total, errors.sum(), percentile(c, total, 50, m),
+                    percentile(c, total, 90, m), percentile(c, total, 99, m), percentile(c, total, 99.9, m), m);
+
+        }
+
+        private static long percentile(long[] counts, long total, double percentile, long max) {
+
+            if (total == 0) {
+                return 0;
+            }
+
+            long target = Math.max(1, (long) Math.ceil(total * percentile / 100));
+            long seen = 0;
+
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(highestValue(i), max);
+                }
+            }
+
+            return max;
+
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import jp.mydns.projectk.plugin.NoSuchPluginException;
+import jp.mydns.projectk.plugin.Plugin;
+import jp.mydns.projectk.plugin.PluginLease;
+import jp.mydns.projectk.plugin.PluginLoader;
+import jp.mydns.projectk.plugin.PluginLoadingException;
+
+/**
+ * A plug-in loader that instruments the plug-ins of another loader.
+ * <p>
+ * Each plug-in instance is wrapped in a dynamic proxy of the plug-in interface, which measures every call of the
+ * interface methods and records it to the {@link PluginMetricsSink}, keyed by the plug-in name and the method name.
+ * Calls of the {@code Object} methods are not recorded; {@code equals} and {@code hashCode} are identity-based on the
+ * proxy, and {@code toString} is delegated. A recorder and a method handle are resolved once per plug-in and method,
+ * so a call costs the proxy dispatch, two {@link System#nanoTime()} and the recorder.
+ * <p>
+ * The {@link #release(Plugin)} accepts both a proxy and a raw instance. The warm-up is delegated as is, so it is not
+ * recorded.
+ *
+ * @param <T> plug-in interface type
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+public class InstrumentedPluginLoader<T extends Plugin> implements PluginLoader<T> {
+
+    private final Class<T> clazz;
+    private final PluginLoader<T> delegate;
+    private final PluginMetricsSink sink;
+    private final MethodHandles.Lookup lookup;
+    private final Map<String, Map<Method, Invocation>> invocations = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param clazz plug-in interface type. It must be an interface. A non-public interface must be in a package that
+     * is open to this library, such as a package of the unnamed module.
+     * @param delegate plug-in loader to instrument
+     * @param sink destination of the metrics
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws IllegalArgumentException if {@code clazz} is not an interface, or its methods are not accessible
+     * @since 1.1.0
+     */
+    public InstrumentedPluginLoader(Class<T> clazz, PluginLoader<T> delegate, PluginMetricsSink sink) {
+
+        this.clazz = Objects.requireNonNull(clazz);
+        this.delegate = Objects.requireNonNull(delegate);
+        this.sink = Objects.requireNonNull(sink);
+
+        if (!clazz.isInterface()) {
+            throw new IllegalArgumentException("Plug-in type must be an interface.");
+        }
+
+        this.lookup = lookupOf(clazz);
+
+    }
+
+    /**
+     * Returns a lookup that can access all methods of the interface. A private lookup is needed for a non-public
+     * interface, and a public interface in a package that is not open falls back to the public lookup.
+     */
+    private static MethodHandles.Lookup lookupOf(Class<?> clazz) {
+
+        MethodHandles.Lookup lookup;
+
+        try {
+            lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+        } catch (IllegalAccessException ignore) {
+            lookup = MethodHandles.publicLookup();
+        }
+
+        try {
+            for (Method m : clazz.getMethods()) {
+                lookup.unreflect(m);
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalArgumentException("Methods of the plug-in type are not accessible. [%s]".formatted(
+                    clazz.getName()), ex);
+        }
+
+        return lookup;
+
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException {@inheritDoc}
+     * @throws NoSuchPluginException {@inheritDoc}
+     * @throws PluginLoadingException {@inheritDoc}
+     * @since 1.1.0
+     */
+    @Override
+    public T load(String name) {
+        return wrap(delegate.load(name));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException {@inheritDoc}
+     * @throws NoSuchPluginException {@inheritDoc}
+     * @throws PluginLoadingException {@inheritDoc}
+     * @since 1.1.0
+     */
+    @Override
+    public PluginLease<T> lease(String name) {
+
+        PluginLease<T> lease = delegate.lease(name);
+
+        return PluginLease.of(wrap(lease.get()), lease::close);
+
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException {@inheritDoc}
+     * @throws PluginLoadingException {@inheritDoc}
+     * @since 1.1.0
+     */
+    @Override
+    public Optional<T> find(String name) {
+        return delegate.find(name).map(this::wrap);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.1.0
+     */
+    @Override
+    public Stream<Map.Entry<String, Supplier<T>>> stream() {
+        return delegate.stream().map(e -> Map.entry(e.getKey(), () -> wrap(e.getValue().get())));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException {@inheritDoc}
+     * @since 1.1.0
+     */
+    @Override
+    public void release(T plugin) {
+        delegate.release(unwrap(plugin));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException {@inheritDoc}
+     * @since 1.1.0
+     */
+    @Override
+    public CompletableFuture<Map<String, Duration>> warmUp(Collection<String> names, boolean invokeHooks,
+            Executor executor) {
+        return delegate.warmUp(names, invokeHooks, executor);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException {@inheritDoc}
+     * @throws NoSuchPluginException {@inheritDoc}
+     * @throws PluginLoadingException {@inheritDoc}
+     * @since 1.1.0
+     */
+    @Override
+    public Duration warmUp(String name, boolean invokeHooks) {
+        return delegate.warmUp(name, invokeHooks);
+    }
+
+    /**
+     * Close the delegated plug-in loader.
+     *
+     * @since 1.1.0
+     */
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private T wrap(T plugin) {
+
+        String name = toPluginName(plugin.getClass().getName());
+        Map<Method, Invocation> methods = invocations.computeIfAbsent(name, k -> new ConcurrentHashMap<>());
+
+        return clazz.cast(Proxy.newProxyInstance(clazz.getClassLoader(), new Class<?>[]{clazz},
+                new Handler(plugin, name, methods, sink, lookup)));
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private T unwrap(T plugin) {
+
+        if (Proxy.isProxyClass(plugin.getClass()) && Proxy.getInvocationHandler(plugin) instanceof Handler h) {
+            return (T) h.target;
+        }
+
+        return Objects.requireNonNull(plugin);
+
+    }
+
+    private static String toPluginName(String className) {
+
+        int idx = className.lastIndexOf('.');
+
+        return idx > 0 ? className.substring(idx + 1, className.length()) : className;
+
+    }
+
+    /**
+     * Invocation of an interface method. The method handle takes the target and the argument array.
+     */
+    private record Invocation(MethodHandle handle, PluginMetricsSink.Recorder recorder) {
+
+        private static final MethodType TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+        static Invocation of(MethodHandles.Lookup lookup, Method method, PluginMetricsSink.Recorder recorder) {
+            try {
+                return new Invocation(lookup.unreflect(method)
+                        .asSpreader(Object[].class, method.getParameterCount()).asType(TYPE), recorder);
+            } catch (IllegalAccessException ex) {
+                // Note: Methods of the plug-in type were checked to be accessible when constructing.
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    private static final class Handler implements InvocationHandler {
+
+        private static final Object[] NO_ARGS = {};
+
+        private final Object target;
+        private final String pluginName;
+        private final Map<Method, Invocation> methods;
+        private final PluginMetricsSink sink;
+        private final MethodHandles.Lookup lookup;
+
+        Handler(Object target, String pluginName, Map<Method, Invocation> methods, PluginMetricsSink sink,
+                MethodHandles.Lookup lookup) {
+            this.target = target;
+            this.pluginName = pluginName;
+            this.methods = methods;
+            this.sink = sink;
+            this.lookup = lookup;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, method, args);
+            }
+
+            Invocation inv = methods.get(method);
+
+            if (inv == null) {
+                inv = methods.computeIfAbsent(method, m -> Invocation.of(lookup, m, sink.recorder(pluginName,
+                        m.getName())));
+            }
+
+            Object[] a = args == null ? NO_ARGS : args;
+            long start = System.nanoTime();
+            boolean failed = true;
+
+            try {
+
+                Object result = inv.handle().invokeExact(target, a);
+                failed = false;
+
+                return result;
+
+            } finally {
+                inv.recorder().record(System.nanoTime() - start, failed);
+            }
+
+        }
+
+        private Object invokeObjectMethod(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "equals" ->
+                    proxy == args[0];
+                case "hashCode" ->
+                    System.identityHashCode(proxy);
+                default ->
+                    target.toString();
+            };
+        }
+    }
+}
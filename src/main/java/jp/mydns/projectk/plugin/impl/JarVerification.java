@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+/**
+ * Verification policy of the signed plug-in jar files.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ * @see PluginLoaderOptions.Builder#withJarVerification(jp.mydns.projectk.plugin.impl.JarVerification)
+ */
+public enum JarVerification {
+
+    /**
+     * Verify the signature of each entry every time it is read. Classes carry their code signers.
+     *
+     * @since 1.1.0
+     */
+    ALWAYS,
+
+    /**
+     * Verify all entries of a signed jar file once, and record the result by the content hash of the jar file. A jar
+     * file whose content hash is recorded is opened without verification, so classes carry no code signers. A jar file
+     * whose contents were changed has another hash, so it is verified again. An entry of a signed jar file that is not
+     * signed is rejected. An unsigned jar file is opened as in {@link #ALWAYS}.
+     * <p>
+     * The hash is computed once per change of the jar file in the process, guarded by the file key and the status
+     * change time of the jar file, so a rewrite in place before opening is detected. A rewrite in place while the jar
+     * file is open is not, so the jar files must be replaced by renaming. If the file system does not provide the
+     * status change time, the jar file is copied to a private temporary file on each open, and the copy is hashed and
+     * read.
+     *
+     * @since 1.1.0
+     */
+    ONCE
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Registry of reference-counted resources shared by key. Each {@link #acquire(Object, Factory)} returns a lease, and
+ * the resource is closed when the last lease of it is closed.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @param <K> key type
+ * @param <V> resource type
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+final class LeaseRegistry<K, V extends Closeable> {
+
+    private final Map<K, Shared> resources = new HashMap<>();
+
+    /**
+     * Acquire a lease of the resource of the key. The resource is created by {@code factory} if no lease exists.
+     *
+     * @param key resource key
+     * @param factory factory of the resource
+     * @return new lease
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws IOException if {@code factory} failed
+     * @since 1.1.0
+     */
+    synchronized Lease acquire(K key, Factory<K, V> factory) throws IOException {
+
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(factory);
+
+        Shared s = resources.get(key);
+
+        if (s == null) {
+            s = new Shared(key, factory.create(key));
+            resources.put(key, s);
+        }
+
+        s.refs++;
+
+        return new Lease(s);
+
+    }
+
+    /**
+     * Returns the number of shared resources.
+     *
+     * @return number of shared resources
+     * @since 1.1.0
+     */
+    synchronized int size() {
+        return resources.size();
+    }
+
+    private void release(Shared s) {
+
+        V closing = null;
+
+        synchronized (this) {
+            if (--s.refs == 0) {
+                resources.remove(s.key);
+                closing = s.resource;
+            }
+        }
+
+        if (closing != null) {
+            try {
+                closing.close();
+            } catch (IOException ignore) {
+                // ignore
+            }
+        }
+
+    }
+
+    private class Shared {
+
+        final K key;
+        final V resource;
+        int refs;
+
+        Shared(K key, V resource) {
+            this.key = key;
+            this.resource = resource;
+        }
+    }
+
+    /**
+     * Factory of a shared resource.
+     *
+     * @param <K> key type
+     * @param <V> resource type
+     * @since 1.1.0
+     */
+    @FunctionalInterface
+    interface Factory<K, V> {
+
+        /**
+         * Create a resource.
+         *
+         * @param key resource key
+         * @return new resource
+         * @throws IOException if occurs I/O error
+         * @since 1.1.0
+         */
+        V create(K key) throws IOException;
+    }
+
+    /**
+     * A lease of a shared resource. Closing a lease more than once has no effect.
+     *
+     * @since 1.1.0
+     */
+    final class Lease implements Closeable {
+
+        private final Shared shared;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Lease(Shared shared) {
+            this.shared = shared;
+        }
+
+        /**
+         * Get the shared resource.
+         *
+         * @return shared resource
+         * @since 1.1.0
+         */
+        V get() {
+            return shared.resource;
+        }
+
+        /**
+         * Release this lease.
+         *
+         * @since 1.1.0
+         */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                release(shared);
+            }
+        }
+    }
+}
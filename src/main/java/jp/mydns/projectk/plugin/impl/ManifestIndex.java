@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.System.Logger;
+import static java.lang.System.Logger.Level.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import jp.mydns.projectk.plugin.PluginScope;
+
+/**
+ * Persistent index of the jar manifests analyzed by the {@code PluginStorageImpl}. Each record holds the jar path,
+ * size, last modified time and resolved plug-in attributes. A jar whose size and last modified time are unchanged is
+ * not re-opened. Without the file, the index is kept only in memory, so that an index reused for repeated discovery in
+ * a process opens only new or changed jar files.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class ManifestIndex {
+
+    private static final Logger LOGGER = System.getLogger(ManifestIndex.class.getName());
+    private static final String HEADER = "# k-plugin-mechanism manifest index v2";
+    private static final String SEPARATOR = "\t";
+
+    private final Path file;
+    private final Map<Path, Entry> loaded;
+    private final Map<Path, Entry> visited = new ConcurrentHashMap<>();
+    private volatile boolean modified;
+
+    /**
+     * Constructor. Read the index file if it exists. A broken index file is treated as empty.
+     *
+     * @param file index file. {@code null} means that the index is kept only in memory.
+     * @since 1.1.0
+     */
+    ManifestIndex(Path file) {
+        this.file = file;
+        this.loaded = file == null ? Map.of() : read(file);
+    }
+
+    private static Map<Path, Entry> read(Path file) {
+
+        try {
+
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+            if (lines.isEmpty() || !HEADER.equals(lines.get(0))) {
+                LOGGER.log(DEBUG, "Ignore an unknown format manifest index. [%s]".formatted(file));
+                return Map.of();
+            }
+
+            Map<Path, Entry> entries = new ConcurrentHashMap<>();
+            lines.stream().skip(1).map(l -> l.split(SEPARATOR, 5)).filter(a -> a.length == 5)
+                    .forEach(a -> entries.put(Path.of(a[4]), new Entry(Long.parseLong(a[0]), Long.parseLong(a[1]),
+                    a[2].isEmpty() ? null : new PluginManifest(a[2], PluginScope.valueOf(a[3])))));
+
+            return entries;
+
+        } catch (NoSuchFileException ignore) {
+
+            return Map.of();
+
+        } catch (IOException | RuntimeException ex) {
+
+            LOGGER.log(WARNING, "Ignore a broken manifest index. [%s]".formatted(file), ex);
+            return Map.of();
+
+        }
+    }
+
+    /**
+     * Resolve the plug-in attributes of the jar file. If the jar file is unchanged since indexed then returns the
+     * indexed result, otherwise resolve it by {@code resolver} and index the result. Nothing is indexed if
+     * {@code resolver} fails, so the jar file is resolved again next time.
+     *
+     * @param jar jar file
+     * @param resolver resolver of the plug-in attributes. Returns empty if the jar file is not a plug-in.
+     * @return plug-in attributes. Empty if the jar file is not a plug-in.
+     * @throws IOException if occurs I/O error when reading attributes of the jar file, or when resolving
+     * @since 1.1.0
+     */
+    Optional<PluginManifest> resolve(Path jar, Resolver resolver) throws IOException {
+
+        Path key = jar.toAbsolutePath();
+        BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+        long size = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+
+        Entry entry = visited.get(key);
+
+        if (entry == null) {
+            entry = loaded.get(key);
+        }
+
+        if (entry == null || entry.size() != size || entry.lastModified() != lastModified) {
+            entry = new Entry(size, lastModified, resolver.resolve(jar).orElse(null));
+            modified = true;
+        }
+
+        visited.put(key, entry);
+
+        return Optional.ofNullable(entry.manifest());
+
+    }
+
+    /**
+     * Rewrite the index file atomically if any record was changed, added or removed. Records of the jar files that
+     * were not resolved since construction are removed. If occurs I/O error then ignore that, because the index is only
+     * a cache.
+     *
+     * @since 1.1.0
+     */
+    void save() {
+
+        if (file == null || !modified && visited.size() == loaded.size()) {
+            return;
+        }
+
+        try {
+
+            AtomicFiles.write(file, tmp -> {
+                try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                    w.write(HEADER);
+                    w.newLine();
+                    for (var e : visited.entrySet()) {
+                        Entry v = e.getValue();
+                        Optional<PluginManifest> mf = Optional.ofNullable(v.manifest());
+                        w.write(String.join(SEPARATOR, Long.toString(v.size()), Long.toString(v.lastModified()),
+                                mf.map(PluginManifest::mainClassName).orElse(""),
+                                mf.map(PluginManifest::scope).map(PluginScope::name).orElse(""),
+                                e.getKey().toString()));
+                        w.newLine();
+                    }
+                }
+            });
+
+        } catch (IOException ex) {
+
+            LOGGER.log(WARNING, "Failed to write the manifest index. [%s]".formatted(file), ex);
+
+        }
+    }
+
+    /**
+     * Resolver of the plug-in attributes of a jar file.
+     */
+    @FunctionalInterface
+    interface Resolver {
+
+        Optional<PluginManifest> resolve(Path jar) throws IOException;
+    }
+
+    private record Entry(long size, long lastModified, PluginManifest manifest) {
+
+    }
+}
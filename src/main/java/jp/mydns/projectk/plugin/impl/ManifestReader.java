@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.System.Logger;
+import static java.lang.System.Logger.Level.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reader of the {@code META-INF/MANIFEST.MF} in a jar file.
+ * <p>
+ * The fast path reads the end of central directory record and scans the central directory from its head, where the
+ * manifest is usually placed, then inflates only the manifest entry. It does not build a {@code JarFile}, so neither
+ * the whole central directory is indexed nor the signature is verified. An archive that the fast path does not support,
+ * such as ZIP64, multi-disk or encrypted, is read by the {@code JarFile} instead.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+final class ManifestReader {
+
+    private static final Logger LOGGER = System.getLogger(ManifestReader.class.getName());
+
+    private static final int EOCD_SIG = 0x06054b50;
+    private static final int EOCD_LEN = 22;
+    private static final int CEN_SIG = 0x02014b50;
+    private static final int CEN_LEN = 46;
+    private static final int LOC_SIG = 0x04034b50;
+    private static final int LOC_LEN = 30;
+    private static final int MAX_COMMENT_LEN = 0xFFFF;
+    private static final int CEN_CHUNK = 64 * 1024;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final byte[] MANIFEST_NAME = JarFile.MANIFEST_NAME.getBytes(StandardCharsets.US_ASCII);
+
+    private ManifestReader() {
+    }
+
+    /**
+     * Read the manifest of the jar file.
+     *
+     * @param jar jar file
+     * @return manifest. Empty if the jar file has no manifest.
+     * @throws IOException if {@code jar} is not a readable jar file
+     * @since 1.1.0
+     */
+    static Optional<Manifest> read(Path jar) throws IOException {
+
+        try (FileChannel ch = FileChannel.open(jar, StandardOpenOption.READ)) {
+
+            byte[] bytes = readFast(ch);
+
+            if (bytes != null) {
+                return bytes.length == 0 ? Optional.empty()
+                        : Optional.of(new Manifest(new ByteArrayInputStream(bytes)));
+            }
+
+        } catch (IOException | RuntimeException | DataFormatException ex) {
+
+            LOGGER.log(TRACE, "Fall back to the JarFile for reading the manifest. [%s]".formatted(jar), ex);
+
+        }
+
+        try (var j = new JarFile(jar.toFile(), false)) {
+            return Optional.ofNullable(j.getManifest());
+        }
+
+    }
+
+    /**
+     * Read manifest bytes via the fast path.
+     *
+     * @return manifest bytes. Empty array if no manifest, or {@code null} if the archive is not supported.
+     */
+    private static byte[] readFast(FileChannel ch) throws IOException, DataFormatException {
+
+        long size = ch.size();
+
+        if (size < EOCD_LEN) {
+            return null;
+        }
+
+        // Find the end of central directory record, it is followed by a comment of up to 64 KiB.
+        int tailLen = (int) Math.min(size, EOCD_LEN + MAX_COMMENT_LEN);
+        ByteBuffer tail = readFully(ch, size - tailLen, tailLen);
+
+        int eocd = -1;
+        for (int i = tailLen - EOCD_LEN; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIG && i + EOCD_LEN + Short.toUnsignedInt(tail.getShort(i + 20)) == tailLen) {
+                eocd = i;
+                break;
+            }
+        }
+
+        if (eocd < 0) {
+            return null;
+        }
+
+        int disk = Short.toUnsignedInt(tail.getShort(eocd + 4));
+        int cenDisk = Short.toUnsignedInt(tail.getShort(eocd + 6));
+        int entries = Short.toUnsignedInt(tail.getShort(eocd + 10));
+        long cenSize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+        long cenOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+
+        if (disk != 0 || cenDisk != 0 || entries == 0xFFFF || cenSize == 0xFFFFFFFFL || cenOffset == 0xFFFFFFFFL
+                || cenOffset + cenSize > size - tailLen + eocd) {
+            return null;
+        }
+
+        // Scan the central directory in chunks. The manifest is usually one of the first entries.
+        long pos = cenOffset;
+        long end = cenOffset + cenSize;
+
+        while (pos < end) {
+
+            ByteBuffer buf = readFully(ch, pos, (int) Math.min(CEN_CHUNK, end - pos));
+            int off = 0;
+
+            while (off + CEN_LEN <= buf.limit()) {
+
+                if (buf.getInt(off) != CEN_SIG) {
+                    return null;
+                }
+
+                int nameLen = Short.toUnsignedInt(buf.getShort(off + 28));
+                int extraLen = Short.toUnsignedInt(buf.getShort(off + 30));
+                int commentLen = Short.toUnsignedInt(buf.getShort(off + 32));
+                int entryLen = CEN_LEN + nameLen + extraLen + commentLen;
+
+                if (off + entryLen > buf.limit()) {
+                    break;
+                }
+
+                if (isManifest(buf, off + CEN_LEN, nameLen)) {
+                    return readEntry(ch, buf, off);
+                }
+
+                off += entryLen;
+
+            }
+
+            if (off == 0) {
+                return null;
+            }
+
+            pos += off;
+
+        }
+
+        return new byte[0];
+
+    }
+
+    private static boolean isManifest(ByteBuffer buf, int off, int len) {
+
+        if (len != MANIFEST_NAME.length) {
+            return false;
+        }
+
+        for (int i = 0; i < len; i++) {
+            if (Character.toUpperCase(buf.get(off + i)) != MANIFEST_NAME[i]) {
+                return false;
+            }
+        }
+
+        return true;
+
+    }
+
+    private static byte[] readEntry(FileChannel ch, ByteBuffer cen, int off) throws IOException, DataFormatException {
+
+        int flags = Short.toUnsignedInt(cen.getShort(off + 8));
+        int method = Short.toUnsignedInt(cen.getShort(off + 10));
+        long compressedSize = Integer.toUnsignedLong(cen.getInt(off + 20));
+        long uncompressedSize = Integer.toUnsignedLong(cen.getInt(off + 24));
+        long locOffset = Integer.toUnsignedLong(cen.getInt(off + 42));
+
+        if ((flags & 1) != 0 || (method != STORED && method != DEFLATED) || compressedSize >= Integer.MAX_VALUE
+                || uncompressedSize >= Integer.MAX_VALUE) {
+            return null;
+        }
+
+        ByteBuffer loc = readFully(ch, locOffset, LOC_LEN);
+
+        if (loc.getInt(0) != LOC_SIG) {
+            return null;
+        }
+
+        long dataOffset = locOffset + LOC_LEN + Short.toUnsignedInt(loc.getShort(26))
+                + Short.toUnsignedInt(loc.getShort(28));
+        ByteBuffer data = readFully(ch, dataOffset, (int) compressedSize);
+
+        if (method == STORED) {
+            return compressedSize == uncompressedSize ? data.array() : null;
+        }
+
+        Inflater inflater = new Inflater(true);
+
+        try {
+
+            inflater.setInput(data.array());
+            byte[] out = new byte[(int) uncompressedSize];
+            int n = 0;
+
+            while (n < out.length && !inflater.finished() && !inflater.needsInput()) {
+                n += inflater.inflate(out, n, out.length - n);
+            }
+
+            return n == out.length ? out : null;
+
+        } finally {
+            inflater.end();
+        }
+
+    }
+
+    private static ByteBuffer readFully(FileChannel ch, long pos, int len) throws IOException {
+
+        ByteBuffer buf = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, pos + buf.position()) < 0) {
+                throw new IOException("Unexpected end of file.");
+            }
+        }
+
+        return buf.flip();
+
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import static java.util.stream.Collectors.joining;
+import jp.mydns.projectk.plugin.NoSuchPluginException;
+
+/**
+ * Factory of the {@code NoSuchPluginException}. The message lists a bounded number of available plug-in names, so that
+ * a miss costs the same regardless of the number of plug-ins.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+final class NoSuchPlugins {
+
+    private static final int MAX_LISTED_NAMES = 10;
+
+    private NoSuchPlugins() {
+    }
+
+    /**
+     * Create an exception for a missing plug-in.
+     *
+     * @param name requested plug-in name
+     * @param availables available plug-ins
+     * @param lightweight {@code true} if the stack trace is not filled in
+     * @return new exception
+     * @since 1.1.0
+     */
+    static NoSuchPluginException of(String name, CaseInsensitiveIndex<?> availables, boolean lightweight) {
+
+        String listed = availables.keys().limit(MAX_LISTED_NAMES).collect(joining(", ", "[", availables.size()
+                > MAX_LISTED_NAMES ? ", ... (%d in total)]".formatted(availables.size()) : "]"));
+
+        return new NoSuchPluginException("No such a plug-in [%s]. Availables are %s.".formatted(name, listed),
+                !lightweight);
+
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.System.Logger;
+import static java.lang.System.Logger.Level.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent index of the packages in jar files, used by the {@code PluginClassLoader} to route a class or resource
+ * lookup to the jar files that contain its package. Each record holds the jar path, size, last modified time and the
+ * directories that contain any file. A jar whose size and last modified time are unchanged is not re-opened.
+ * <p>
+ * Plug-in loaders that use the same index file share one instance in the process, given by the {@link #of(Path)}, so
+ * that they can share the class loaders that use it.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class PackageIndex {
+
+    private static final Logger LOGGER = System.getLogger(PackageIndex.class.getName());
+    private static final String HEADER = "# k-plugin-mechanism package index v1";
+    private static final String SEPARATOR = "\t";
+
+    private static final Map<Path, PackageIndex> SHARED = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final Map<Path, Entry> entries;
+    private volatile boolean modified;
+
+    /**
+     * Constructor. Read the index file if it exists. A broken index file is treated as empty.
+     *
+     * @param file index file
+     * @throws NullPointerException if {@code file} is {@code null}
+     * @since 1.1.0
+     */
+    PackageIndex(Path file) {
+        this.file = Objects.requireNonNull(file);
+        this.entries = read(file);
+    }
+
+    /**
+     * Returns the instance of the index file shared in the process. It is created on first use.
+     *
+     * @param file index file
+     * @return package index
+     * @throws NullPointerException if {@code file} is {@code null}
+     * @since 1.1.0
+     */
+    static PackageIndex of(Path file) {
+        return SHARED.computeIfAbsent(file.toAbsolutePath().normalize(), PackageIndex::new);
+    }
+
+    private static Map<Path, Entry> read(Path file) {
+
+        Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+        try {
+
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+            if (lines.isEmpty() || !HEADER.equals(lines.get(0))) {
+                LOGGER.log(DEBUG, "Ignore an unknown format package index. [%s]".formatted(file));
+                return entries;
+            }
+
+            // Note: Size, last modified time, number of packages, packages and path. The path is the last field.
+            for (String line : lines.subList(1, lines.size())) {
+
+                String[] a = line.split(SEPARATOR, -1);
+                int count = Integer.parseInt(a[2]);
+
+                entries.put(Path.of(String.join(SEPARATOR, Arrays.copyOfRange(a, 3 + count, a.length))),
+                        new Entry(Long.parseLong(a[0]), Long.parseLong(a[1]), Set.of(Arrays.copyOfRange(a, 3,
+                                3 + count))));
+
+            }
+
+            return entries;
+
+        } catch (NoSuchFileException ignore) {
+
+            return entries;
+
+        } catch (IOException | RuntimeException ex) {
+
+            LOGGER.log(WARNING, "Ignore a broken package index. [%s]".formatted(file), ex);
+            entries.clear();
+            return entries;
+
+        }
+    }
+
+    /**
+     * Resolve the packages of the jar file. If the jar file is unchanged since indexed then returns the indexed
+     * packages, otherwise resolve them by {@code resolver} and index the result.
+     *
+     * @param jar jar file
+     * @param resolver resolver of the packages
+     * @return packages. They are directory names separated by {@code /}, and the root is an empty string.
+     * @throws IOException if occurs I/O error when reading attributes of the jar file, or by the {@code resolver}
+     * @since 1.1.0
+     */
+    Set<String> resolve(Path jar, Resolver resolver) throws IOException {
+
+        Path key = jar.toAbsolutePath();
+        BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+        long size = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+
+        Entry entry = entries.get(key);
+
+        if (entry == null || entry.size() != size || entry.lastModified() != lastModified) {
+            entry = new Entry(size, lastModified, Set.copyOf(resolver.resolve()));
+            entries.put(key, entry);
+            modified = true;
+        }
+
+        return entry.packages();
+
+    }
+
+    /**
+     * Rewrite the index file atomically if any record was changed or added. Records of the jar files that no longer
+     * exist are removed. If occurs I/O error then ignore that, because the index is only a cache.
+     *
+     * @since 1.1.0
+     */
+    void save() {
+
+        if (!modified) {
+            return;
+        }
+
+        modified = false;
+        entries.keySet().removeIf(p -> !Files.isRegularFile(p));
+        try {
+
+            AtomicFiles.write(file, tmp -> {
+                try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                    w.write(HEADER);
+                    w.newLine();
+                    for (var e : entries.entrySet()) {
+                        Entry v = e.getValue();
+                        w.write(String.join(SEPARATOR, Long.toString(v.size()), Long.toString(v.lastModified()),
+                                Integer.toString(v.packages().size())));
+                        for (String p : v.packages()) {
+                            w.write(SEPARATOR);
+                            w.write(p);
+                        }
+                        w.write(SEPARATOR);
+                        w.write(e.getKey().toString());
+                        w.newLine();
+                    }
+                }
+            });
+
+        } catch (IOException ex) {
+
+            LOGGER.log(WARNING, "Failed to write the package index. [%s]".formatted(file), ex);
+
+        }
+    }
+
+    /**
+     * Resolver of the packages in a jar file.
+     */
+    @FunctionalInterface
+    interface Resolver {
+
+        Set<String> resolve() throws IOException;
+    }
+
+    private record Entry(long size, long lastModified, Set<String> packages) {
+
+    }
+}
@@ -0,0 +1,861 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger;
+import static java.lang.System.Logger.Level.*;
+import java.net.JarURLConnection;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSigner;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+/**
+ * Class loader of a plug-in. It counts classes defined by itself, and reports its life cycle to the
+ * {@link PluginUnloadTracker}.
+ * <p>
+ * When all class paths are local files, this class loader opens each jar file once on first use and owns the handle
+ * until {@link #close()}. Resource URLs of the jar entries are served from the owned handle, not from the process-wide
+ * cache of the {@code JarURLConnection}, so a resource opened by a plug-in never keeps the jar file open after closing.
+ * Therefore the caches of the {@code URLConnection} need not be disabled. Any other class path is loaded by the
+ * {@code URLClassLoader}.
+ * <p>
+ * On first lookup, the packages of each jar file are indexed, and a class or resource is looked up only in the jar
+ * files that contain its package, and in the directories. A directory resource is looked up in the jar files that
+ * contain it, with or without the trailing slash. The packages of a jar file are read from the {@link PackageIndex} if
+ * given, so unchanged jar files are not opened until a class or resource in them is needed. Package sealing is checked
+ * in the same way as the {@code URLClassLoader}.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class PluginClassLoader extends URLClassLoader {
+
+    private static final Logger LOGGER = System.getLogger(PluginClassLoader.class.getName());
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final String pluginName;
+    private final LongAdder definedClasses = new LongAdder();
+    private final Set<String> definedClassNames = ConcurrentHashMap.newKeySet();
+    private final PluginUnloadTracker.Tracked tracked;
+    private final List<ClassPathEntry> entries;
+    private final PackageIndex packageIndex;
+    private final VerifiedJars verifiedJars;
+    private final Object routesLock = new Object();
+    private volatile Routes routes;
+    private volatile boolean closed;
+
+    /**
+     * Constructor.
+     *
+     * @param pluginName plug-in name
+     * @param name class loader name. It is the main class name of the plug-in.
+     * @param urls class path
+     * @param parent parent class loader
+     * @since 1.1.0
+     */
+    PluginClassLoader(String pluginName, String name, URL[] urls, ClassLoader parent) {
+        this(pluginName, name, urls, parent, null);
+    }
+
+    /**
+     * Constructor with the persistent package index.
+     *
+     * @param pluginName plug-in name
+     * @param name class loader name. It is the main class name of the plug-in.
+     * @param urls class path
+     * @param parent parent class loader
+     * @param packageIndex package index. {@code null} means that packages are indexed only in memory.
+     * @since 1.1.0
+     */
+    PluginClassLoader(String pluginName, String name, URL[] urls, ClassLoader parent, PackageIndex packageIndex) {
+        this(pluginName, name, urls, parent, packageIndex, null);
+    }
+
+    /**
+     * Constructor with the persistent package index and the verified jar files.
+     *
+     * @param pluginName plug-in name
+     * @param name class loader name. It is the main class name of the plug-in.
+     * @param urls class path
+     * @param parent parent class loader
+     * @param packageIndex package index. {@code null} means that packages are indexed only in memory.
+     * @param verifiedJars verified jar files. {@code null} means that jar files are always verified.
+     * @since 1.1.0
+     */
+    PluginClassLoader(String pluginName, String name, URL[] urls, ClassLoader parent, PackageIndex packageIndex,
+            VerifiedJars verifiedJars) {
+        super(name, urls, parent);
+        this.pluginName = pluginName;
+        this.entries = toEntries(urls);
+        this.packageIndex = packageIndex;
+        this.verifiedJars = verifiedJars;
+        this.tracked = PluginUnloadTracker.getInstance().track(this, pluginName, definedClasses);
+    }
+
+    private static List<ClassPathEntry> toEntries(URL[] urls) {
+
+        List<ClassPathEntry> list = new ArrayList<>(urls.length);
+
+        for (URL url : urls) {
+
+            if (!"file".equals(url.getProtocol())) {
+                return null;
+            }
+
+            try {
+
+                Path path = Path.of(url.toURI());
+                list.add(url.getPath().endsWith("/") ? new DirectoryEntry(url, path) : new JarFileEntry(url, path));
+
+            } catch (URISyntaxException | IllegalArgumentException ex) {
+                return null;
+            }
+        }
+
+        return List.copyOf(list);
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Count the defined class.
+     *
+     * @since 1.1.0
+     */
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+
+        Class<?> c = entries == null ? super.findClass(name) : defineOwnedClass(name);
+        definedClasses.increment();
+        definedClassNames.add(name);
+
+        return c;
+
+    }
+
+    private Class<?> defineOwnedClass(String name) throws ClassNotFoundException {
+
+        String path = name.replace('.', '/') + ".class";
+
+        for (ClassPathEntry e : candidates(path)) {
+            try {
+
+                Resource r = e.getResource(this, path);
+
+                if (r != null) {
+                    definePackageIfAbsent(name, r);
+                    return defineClass(name, r.bytes(), 0, r.bytes().length, r.codeSource());
+                }
+
+            } catch (IOException ex) {
+                throw new ClassNotFoundException(name, ex);
+            }
+        }
+
+        throw new ClassNotFoundException(name);
+
+    }
+
+    private void definePackageIfAbsent(String className, Resource r) {
+
+        int idx = className.lastIndexOf('.');
+
+        if (idx < 0) {
+            return;
+        }
+
+        String pkg = className.substring(0, idx);
+        URL location = r.codeSource().getLocation();
+        Package defined = getDefinedPackage(pkg);
+
+        if (defined == null) {
+            try {
+                if (r.manifest() != null) {
+                    definePackage(pkg, r.manifest(), location);
+                } else {
+                    definePackage(pkg, null, null, null, null, null, null, null);
+                }
+                return;
+            } catch (IllegalArgumentException ignore) {
+                // Note: Defined by another thread in parallel. Then check the sealing against it.
+                defined = getDefinedPackage(pkg);
+            }
+        }
+
+        verifySealing(defined, pkg, r.manifest(), location);
+
+    }
+
+    /**
+     * Check that a class from the location can be defined in the already defined package.
+     *
+     * @throws SecurityException if the package is sealed to another location, or the location seals the package that
+     * has been defined unsealed
+     */
+    private static void verifySealing(Package defined, String pkg, Manifest manifest, URL location) {
+
+        if (defined.isSealed()) {
+            if (!defined.isSealed(location)) {
+                throw new SecurityException("Sealing violation: package %s is sealed.".formatted(pkg));
+            }
+        } else if (manifest != null && isSealed(pkg, manifest)) {
+            throw new SecurityException("Sealing violation: can not seal package %s: already loaded.".formatted(pkg));
+        }
+
+    }
+
+    private static boolean isSealed(String pkg, Manifest manifest) {
+
+        Attributes attrs = manifest.getAttributes(pkg.replace('.', '/') + "/");
+        String sealed = attrs != null ? attrs.getValue(Attributes.Name.SEALED) : null;
+
+        if (sealed == null) {
+            sealed = manifest.getMainAttributes().getValue(Attributes.Name.SEALED);
+        }
+
+        return "true".equalsIgnoreCase(sealed);
+
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.1.0
+     */
+    @Override
+    public URL findResource(String name) {
+
+        if (entries == null) {
+            return super.findResource(name);
+        }
+
+        for (ClassPathEntry e : candidates(name)) {
+            URL url = e.findResource(this, name);
+            if (url != null) {
+                return url;
+            }
+        }
+
+        return null;
+
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.1.0
+     */
+    @Override
+    public Enumeration<URL> findResources(String name) throws IOException {
+
+        if (entries == null) {
+            return super.findResources(name);
+        }
+
+        List<URL> urls = new ArrayList<>();
+
+        for (ClassPathEntry e : candidates(name)) {
+            URL url = e.findResource(this, name);
+            if (url != null) {
+                urls.add(url);
+            }
+        }
+
+        return Collections.enumeration(urls);
+
+    }
+
+    /**
+     * Get the class path entries that may contain the path, in the class path order. A path may name a directory, with
+     * or without the trailing slash.
+     */
+    private List<ClassPathEntry> candidates(String path) {
+
+        Routes r = getRoutes();
+
+        if (path.endsWith("/")) {
+            List<ClassPathEntry> l = r.byDirectory().get(path.substring(0, path.length() - 1));
+            return l != null ? l : r.others();
+        }
+
+        List<ClassPathEntry> l = r.byDirectory().get(path);
+
+        if (l != null) {
+            return l;
+        }
+
+        int idx = path.lastIndexOf('/');
+        l = r.byPackage().get(idx < 0 ? "" : path.substring(0, idx));
+
+        return l != null ? l : r.others();
+
+    }
+
+    private Routes getRoutes() {
+
+        Routes r = routes;
+
+        if (r == null) {
+            synchronized (routesLock) {
+                r = routes;
+                if (r == null) {
+                    routes = r = buildRoutes();
+                }
+            }
+        }
+
+        return r;
+
+    }
+
+    /**
+     * Index the packages of the jar files. Directories are candidates of every package, because their contents may
+     * change. If failed then all entries are candidates of every package.
+     * <p>
+     * Each package and its ancestors are also indexed as directories. The candidates of a directory are the jar files
+     * that contain it, and the jar files that contain its parent package, since the path may name a file as well.
+     */
+    private Routes buildRoutes() {
+
+        Map<String, BitSet> packages = new HashMap<>();
+        Map<String, BitSet> dirs = new HashMap<>();
+        BitSet directories = new BitSet();
+
+        try {
+
+            for (int i = 0; i < entries.size(); i++) {
+
+                Set<String> p = entries.get(i).listPackages(this);
+
+                if (p == null) {
+                    directories.set(i);
+                } else {
+                    for (String pkg : p) {
+                        packages.computeIfAbsent(pkg, k -> new BitSet()).set(i);
+                        for (String d = pkg; !d.isEmpty(); d = d.substring(0, Math.max(d.lastIndexOf('/'), 0))) {
+                            dirs.computeIfAbsent(d, k -> new BitSet()).set(i);
+                        }
+                    }
+                }
+
+            }
+
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.log(DEBUG, "Failed to index the packages of a plug-in [%s].".formatted(pluginName), ex);
+            return new Routes(Map.of(), Map.of(), entries);
+        }
+
+        dirs.forEach((dir, bits) -> {
+            int idx = dir.lastIndexOf('/');
+            BitSet parent = packages.get(idx < 0 ? "" : dir.substring(0, idx));
+            if (parent != null) {
+                bits.or(parent);
+            }
+        });
+
+        return new Routes(toRoutes(packages, directories), toRoutes(dirs, directories),
+                directories.stream().mapToObj(entries::get).toList());
+
+    }
+
+    private Map<String, List<ClassPathEntry>> toRoutes(Map<String, BitSet> indexed, BitSet directories) {
+
+        Map<String, List<ClassPathEntry>> routes = new HashMap<>(indexed.size() * 4 / 3 + 1);
+
+        indexed.forEach((key, bits) -> {
+            BitSet b = (BitSet) bits.clone();
+            b.or(directories);
+            routes.put(key, b.stream().mapToObj(entries::get).toList());
+        });
+
+        return routes;
+
+    }
+
+    /**
+     * List the names of all classes in the class path. Versioned entries of a multi-release jar file are resolved for
+     * the running Java version, and {@code module-info} and {@code package-info} are excluded.
+     *
+     * @return class names
+     * @throws IOException if occurs I/O error
+     * @since 1.1.0
+     */
+    List<String> listClassNames() throws IOException {
+
+        if (entries == null) {
+            return List.of();
+        }
+
+        List<String> names = new ArrayList<>();
+
+        for (ClassPathEntry e : entries) {
+            e.listClassFiles(this).stream().filter(n -> !n.endsWith("module-info.class"))
+                    .filter(n -> !n.endsWith("package-info.class"))
+                    .map(n -> n.substring(0, n.length() - ".class".length()).replace('/', '.')).forEach(names::add);
+        }
+
+        return names;
+
+    }
+
+    /**
+     * Get the plug-in name.
+     *
+     * @return plug-in name
+     * @since 1.1.0
+     */
+    String getPluginName() {
+        return pluginName;
+    }
+
+    /**
+     * Get the first class path entry, that is the plug-in jar file.
+     *
+     * @return plug-in jar file. {@code null} if the class path is empty.
+     * @since 1.1.0
+     */
+    String getJarPath() {
+
+        URL[] urls = getURLs();
+
+        return urls.length > 0 ? PluginEvents.toPath(urls[0]) : null;
+
+    }
+
+    /**
+     * Get the number of classes defined by this class loader.
+     *
+     * @return number of defined classes
+     * @since 1.1.0
+     */
+    long getDefinedClassCount() {
+        return definedClasses.sum();
+    }
+
+    /**
+     * Get the names of classes defined by this class loader.
+     *
+     * @return class names
+     * @since 1.1.0
+     */
+    Set<String> getDefinedClassNames() {
+        return Set.copyOf(definedClassNames);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Close owned jar files, and report closing to the {@code PluginUnloadTracker}. Resources opened from this class
+     * loader can no longer be read.
+     *
+     * @since 1.1.0
+     */
+    @Override
+    public void close() throws IOException {
+
+        closed = true;
+        IOException failure = null;
+
+        for (ClassPathEntry e : entries == null ? List.<ClassPathEntry>of() : entries) {
+            try {
+                e.close();
+            } catch (IOException ex) {
+                if (failure == null) {
+                    failure = ex;
+                } else {
+                    failure.addSuppressed(ex);
+                }
+            }
+        }
+
+        try {
+            super.close();
+        } catch (IOException ex) {
+            if (failure == null) {
+                failure = ex;
+            } else {
+                failure.addSuppressed(ex);
+            }
+        } finally {
+            tracked.markClosed();
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("The plug-in class loader has already been closed.");
+        }
+    }
+
+    /**
+     * Class path entries by package and by directory, and the entries for a path that no jar file contains.
+     */
+    private record Routes(Map<String, List<ClassPathEntry>> byPackage, Map<String, List<ClassPathEntry>> byDirectory,
+            List<ClassPathEntry> others) {
+
+    }
+
+    /**
+     * Class bytes and where they come from.
+     */
+    private record Resource(byte[] bytes, CodeSource codeSource, Manifest manifest) {
+
+    }
+
+    /**
+     * An entry of the class path.
+     */
+    private interface ClassPathEntry {
+
+        Resource getResource(PluginClassLoader loader, String path) throws IOException;
+
+        URL findResource(PluginClassLoader loader, String path);
+
+        List<String> listClassFiles(PluginClassLoader loader) throws IOException;
+
+        /**
+         * Returns the packages that contain any file, or {@code null} if the entry must be probed for every package.
+         */
+        Set<String> listPackages(PluginClassLoader loader) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    /**
+     * A directory in the class path. Resources are plain file URLs, because they do not hold any handle.
+     */
+    private record DirectoryEntry(URL url, Path dir) implements ClassPathEntry {
+
+        @Override
+        public Resource getResource(PluginClassLoader loader, String path) throws IOException {
+
+            loader.ensureOpen();
+            Path file = resolve(path);
+
+            if (file == null) {
+                return null;
+            }
+
+            return new Resource(Files.readAllBytes(file), new CodeSource(url, (CodeSigner[]) null), null);
+
+        }
+
+        @Override
+        public URL findResource(PluginClassLoader loader, String path) {
+            try {
+
+                Path file = loader.closed ? null : resolve(path);
+
+                return file == null ? null : file.toUri().toURL();
+
+            } catch (MalformedURLException ex) {
+                return null;
+            }
+        }
+
+        @Override
+        public List<String> listClassFiles(PluginClassLoader loader) throws IOException {
+
+            loader.ensureOpen();
+
+            if (!Files.isDirectory(dir)) {
+                return List.of();
+            }
+
+            try (Stream<Path> s = Files.walk(dir)) {
+                return s.filter(p -> p.getFileName().toString().endsWith(".class")).filter(Files::isRegularFile)
+                        .map(p -> dir.relativize(p).toString().replace(File.separatorChar, '/')).toList();
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        @Override
+        public Set<String> listPackages(PluginClassLoader loader) {
+            return null;
+        }
+
+        private Path resolve(String path) {
+
+            Path file = dir.resolve(path).normalize();
+
+            return file.startsWith(dir) && Files.isRegularFile(file) ? file : null;
+
+        }
+
+        @Override
+        public void close() {
+            // Nothing to close.
+        }
+    }
+
+    /**
+     * A jar file in the class path. The jar file is opened on first use, and verified if it is signed, or only once by
+     * the {@link VerifiedJars} if given. Multi-release entries are resolved for the running Java version.
+     */
+    private static final class JarFileEntry implements ClassPathEntry {
+
+        private final URL url;
+        private final Path path;
+        private final URLStreamHandler handler = new Handler();
+        private JarFile jar;
+        private boolean missing;
+
+        JarFileEntry(URL url, Path path) {
+            this.url = url;
+            this.path = path;
+        }
+
+        private synchronized JarFile jar(PluginClassLoader loader) throws IOException {
+
+            loader.ensureOpen();
+
+            if (jar == null && !missing) {
+                if (Files.isRegularFile(path)) {
+                    jar = loader.verifiedJars != null ? loader.verifiedJars.open(path, JarFile.runtimeVersion())
+                            : new JarFile(path.toFile(), true, ZipFile.OPEN_READ, JarFile.runtimeVersion());
+                } else {
+                    missing = true;
+                }
+            }
+
+            return jar;
+
+        }
+
+        @Override
+        public Resource getResource(PluginClassLoader loader, String path) throws IOException {
+
+            JarFile j = jar(loader);
+            JarEntry e = j == null ? null : j.getJarEntry(path);
+
+            if (e == null) {
+                return null;
+            }
+
+            byte[] bytes;
+            try (InputStream in = j.getInputStream(e)) {
+                bytes = in.readAllBytes();
+            }
+
+            // Note: Signers are available after the entry was read fully.
+            return new Resource(bytes, new CodeSource(url, e.getCodeSigners()), j.getManifest());
+
+        }
+
+        @Override
+        public URL findResource(PluginClassLoader loader, String path) {
+            try {
+
+                JarFile j = jar(loader);
+
+                if (j == null || j.getJarEntry(path) == null) {
+                    return null;
+                }
+
+                return new URL(null, "jar:" + url + "!/" + path, handler);
+
+            } catch (IOException ex) {
+                return null;
+            }
+        }
+
+        @Override
+        public List<String> listClassFiles(PluginClassLoader loader) throws IOException {
+
+            JarFile j = jar(loader);
+
+            if (j == null) {
+                return List.of();
+            }
+
+            return j.versionedStream().map(JarEntry::getName).filter(n -> n.endsWith(".class")).toList();
+
+        }
+
+        @Override
+        public Set<String> listPackages(PluginClassLoader loader) throws IOException {
+
+            loader.ensureOpen();
+
+            if (!Files.isRegularFile(path)) {
+                return Set.of();
+            }
+
+            return loader.packageIndex != null ? loader.packageIndex.resolve(path, () -> readPackages(loader))
+                    : readPackages(loader);
+
+        }
+
+        private Set<String> readPackages(PluginClassLoader loader) throws IOException {
+
+            JarFile j = jar(loader);
+
+            if (j == null) {
+                return Set.of();
+            }
+
+            // Note: Versioned entries are resolved by the base name, so they belong to the base package.
+            return j.versionedStream().map(JarEntry::getName).filter(n -> !n.endsWith("/"))
+                    .map(n -> n.lastIndexOf('/') < 0 ? "" : n.substring(0, n.lastIndexOf('/')))
+                    .collect(Collectors.toSet());
+
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+
+            JarFile j = jar;
+            jar = null;
+            missing = true;
+
+            if (j != null) {
+                j.close();
+            }
+
+        }
+
+        /**
+         * Serves the jar entries from the owned {@code JarFile}. Once closed, any connection fails.
+         */
+        private final class Handler extends URLStreamHandler {
+
+            @Override
+            protected URLConnection openConnection(URL u) throws IOException {
+                return new Connection(u);
+            }
+        }
+
+        private final class Connection extends JarURLConnection {
+
+            private JarFile connectedJar;
+            private JarEntry connectedEntry;
+
+            Connection(URL u) throws MalformedURLException {
+                super(u);
+            }
+
+            @Override
+            public void connect() throws IOException {
+
+                if (connected) {
+                    return;
+                }
+
+                synchronized (JarFileEntry.this) {
+
+                    if (jar == null) {
+                        throw new IOException("The jar file has already been closed. [%s]".formatted(url));
+                    }
+
+                    connectedJar = jar;
+
+                }
+
+                connectedEntry = connectedJar.getJarEntry(getEntryName());
+
+                if (connectedEntry == null) {
+                    throw new IOException("No such an entry [%s] in %s.".formatted(getEntryName(), url));
+                }
+
+                connected = true;
+
+            }
+
+            @Override
+            public JarFile getJarFile() throws IOException {
+                connect();
+                return connectedJar;
+            }
+
+            @Override
+            public JarEntry getJarEntry() throws IOException {
+                connect();
+                return connectedEntry;
+            }
+
+            @Override
+            public InputStream getInputStream() throws IOException {
+
+                connect();
+
+                try {
+                    return connectedJar.getInputStream(connectedEntry);
+                } catch (IllegalStateException ex) {
+                    throw new IOException("The jar file has already been closed. [%s]".formatted(url), ex);
+                }
+
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                try {
+                    return getJarEntry().getSize();
+                } catch (IOException ex) {
+                    return -1;
+                }
+            }
+        }
+    }
+}
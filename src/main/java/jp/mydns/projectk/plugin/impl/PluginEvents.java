@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Path;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events of the plug-in life cycle. Every event has a duration, and is recorded only when it is
+ * enabled in the recording settings, e.g. {@code jfr configure +jp.mydns.projectk.plugin.Instantiation#enabled=true}.
+ * A disabled event costs almost nothing, because its fields are set only if it should be committed.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+final class PluginEvents {
+
+    private static final String CATEGORY = "Plug-in";
+
+    private PluginEvents() {
+    }
+
+    /**
+     * Convert a class path entry to a file path for the events.
+     *
+     * @param url class path entry
+     * @return file path, or the URL itself if it is not a file
+     */
+    static String toPath(URL url) {
+        try {
+            return Path.of(url.toURI()).toString();
+        } catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException ex) {
+            return url.toString();
+        }
+    }
+
+    /**
+     * Listing of a plug-in stored directory.
+     */
+    @Name("jp.mydns.projectk.plugin.DirectoryScan")
+    @Label("Plug-in Directory Scan")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class DirectoryScan extends Event {
+
+        @Label("Directory")
+        String directory;
+
+        @Label("Entries")
+        @Description("Number of files and directories in the directory")
+        int entries;
+    }
+
+    /**
+     * Reading of the manifest of a jar file. Jar files resolved from the manifest index are not read.
+     */
+    @Name("jp.mydns.projectk.plugin.ManifestRead")
+    @Label("Plug-in Manifest Read")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class ManifestRead extends Event {
+
+        @Label("Jar Path")
+        String jarPath;
+
+        @Label("Main Class")
+        @Description("Main class name. Null if the jar file is not a plug-in.")
+        String mainClass;
+    }
+
+    /**
+     * Creation of a plug-in class loader.
+     */
+    @Name("jp.mydns.projectk.plugin.ClassLoaderCreation")
+    @Label("Plug-in Class Loader Creation")
+    @Category(CATEGORY)
+    static final class ClassLoaderCreation extends Event {
+
+        @Label("Plug-in Name")
+        String pluginName;
+
+        @Label("Jar Path")
+        String jarPath;
+
+        @Label("Shared Libraries")
+        @Description("Whether the libraries are loaded by a shared class loader")
+        boolean sharedLibraries;
+    }
+
+    /**
+     * Instantiation of a plug-in. The class load time includes the creation of the class loader on first use, and is
+     * almost zero after that.
+     */
+    @Name("jp.mydns.projectk.plugin.Instantiation")
+    @Label("Plug-in Instantiation")
+    @Category(CATEGORY)
+    static final class Instantiation extends Event {
+
+        @Label("Plug-in Name")
+        String pluginName;
+
+        @Label("Jar Path")
+        String jarPath;
+
+        @Label("Class Load Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long classLoadTime;
+
+        @Label("Constructor Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long constructorTime;
+    }
+
+    /**
+     * Closing of a plug-in class loader, by the {@code close()} of the plug-in loader or by the {@code Cleaner}.
+     */
+    @Name("jp.mydns.projectk.plugin.Unload")
+    @Label("Plug-in Unload")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class Unload extends Event {
+
+        @Label("Plug-in Name")
+        String pluginName;
+
+        @Label("Jar Path")
+        String jarPath;
+
+        @Label("Defined Classes")
+        long definedClasses;
+
+        @Label("Trigger")
+        @Description("close or cleaner")
+        String trigger;
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import jp.mydns.projectk.plugin.NoSuchPluginException;
+import jp.mydns.projectk.plugin.Plugin;
+import jp.mydns.projectk.plugin.PluginExecutionException;
+import jp.mydns.projectk.plugin.PluginLoader;
+import jp.mydns.projectk.plugin.PluginLoadingException;
+
+/**
+ * Executes plug-in calls in bulkheads.
+ * <p>
+ * Each plug-in known to the plug-in loader has its own bounded thread pool, created on first call. At most
+ * {@code concurrency} calls of a plug-in run at the same time, and at most {@code queueCapacity} calls wait for them.
+ * A call beyond that is rejected at once, and a call that does not end until its deadline is cancelled by interrupt.
+ * Both are reported by the {@link PluginExecutionException}. The plug-in is loaded and called in its bulkhead, so a
+ * slow or overloaded plug-in does not affect other plug-ins. The caller's thread still waits for the result, up to the
+ * deadline.
+ * <p>
+ * Threads are created by the {@link ThreadFactory} given to the builder. The default creates daemon platform threads
+ * named after the plug-in. On Java 21 or later, a factory of virtual threads can be given.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @param <T> plug-in interface type
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+public class PluginExecutor<T extends Plugin> implements AutoCloseable {
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final PluginLoader<T> loader;
+    private final int concurrency;
+    private final int queueCapacity;
+    private final Duration timeout;
+    private final ThreadFactory threadFactory;
+    private final Map<String, ThreadPoolExecutor> bulkheads
+            = new ConcurrentSkipListMap<>(String.CASE_INSENSITIVE_ORDER);
+    private volatile boolean closed;
+
+    private PluginExecutor(Builder<T> b) {
+        this.loader = b.loader;
+        this.concurrency = b.concurrency;
+        this.queueCapacity = b.queueCapacity;
+        this.timeout = b.timeout;
+        this.threadFactory = b.threadFactory;
+    }
+
+    /**
+     * Returns a new builder.
+     *
+     * @param <T> plug-in interface type
+     * @param loader plug-in loader that supplies the plug-ins
+     * @return new builder
+     * @throws NullPointerException if {@code loader} is {@code null}
+     * @since 1.1.0
+     */
+    public static <T extends Plugin> Builder<T> builder(PluginLoader<T> loader) {
+        return new Builder<>(Objects.requireNonNull(loader));
+    }
+
+    /**
+     * Execute a call of the plug-in in its bulkhead, and wait for the result until the deadline. The plug-in is loaded
+     * in the bulkhead, and released after the call.
+     *
+     * @param <R> result type
+     * @param name plug-in name. It case insensitive.
+     * @param call call of the plug-in
+     * @return result of the call
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws NoSuchPluginException if no found a plug-in
+     * @throws PluginLoadingException if an error occurs while plug-in loading
+     * @throws PluginExecutionException if the call was rejected, timed out or failed
+     * @throws InterruptedException if the current thread was interrupted while waiting. The call is cancelled.
+     * @since 1.1.0
+     */
+    public <R> R execute(String name, Function<? super T, ? extends R> call) throws InterruptedException {
+
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(call);
+
+        Future<R> future;
+
+        try {
+
+            future = bulkhead(name).submit(() -> {
+
+                T plugin = loader.load(name);
+
+                try {
+                    return call.apply(plugin);
+                } finally {
+                    loader.release(plugin);
+                }
+
+            });
+
+        } catch (RejectedExecutionException ex) {
+            throw withCause(new PluginExecutionException(closed ? "The plug-in executor has already been closed."
+                    : "The plug-in [%s] is overloaded.".formatted(name)), ex);
+        }
+
+        try {
+
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+
+        } catch (TimeoutException ex) {
+
+            future.cancel(true);
+            throw withCause(new PluginExecutionException("The plug-in [%s] timed out after %s."
+                    .formatted(name, timeout)), ex);
+
+        } catch (InterruptedException ex) {
+
+            future.cancel(true);
+            throw ex;
+
+        } catch (ExecutionException ex) {
+
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof RuntimeException r) {
+                throw r;
+            }
+
+            if (cause instanceof Error e) {
+                throw e;
+            }
+
+            throw withCause(new PluginExecutionException("The plug-in [%s] failed.".formatted(name)), cause);
+
+        }
+
+    }
+
+    private ThreadPoolExecutor bulkhead(String name) {
+
+        ThreadPoolExecutor e = bulkheads.get(name);
+
+        if (e != null) {
+            return e;
+        }
+
+        // Note: A bulkhead is created only for a known plug-in, so that unknown names do not leave thread pools.
+        if (loader.stream().map(Map.Entry::getKey).noneMatch(name::equalsIgnoreCase)) {
+            throw new NoSuchPluginException("No such a plug-in [%s].".formatted(name));
+        }
+
+        e = bulkheads.computeIfAbsent(name, this::newBulkhead);
+
+        // Note: A bulkhead created concurrently with close() is shut down here.
+        if (closed) {
+            e.shutdownNow();
+        }
+
+        return e;
+
+    }
+
+    private ThreadPoolExecutor newBulkhead(String name) {
+
+        BlockingQueue<Runnable> queue = queueCapacity == 0 ? new SynchronousQueue<>()
+                : new ArrayBlockingQueue<>(queueCapacity);
+        ThreadFactory factory = threadFactory != null ? threadFactory : new NamedThreadFactory(name);
+        ThreadPoolExecutor e = new ThreadPoolExecutor(concurrency, concurrency, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                queue, factory, new ThreadPoolExecutor.AbortPolicy());
+        e.allowCoreThreadTimeOut(true);
+
+        return e;
+
+    }
+
+    /**
+     * Returns the number of bulkheads.
+     *
+     * @return number of bulkheads
+     * @since 1.1.0
+     */
+    int size() {
+        return bulkheads.size();
+    }
+
+    private static PluginExecutionException withCause(PluginExecutionException ex, Throwable cause) {
+        ex.initCause(cause);
+        return ex;
+    }
+
+    /**
+     * Stop accepting calls, and interrupt the running calls. The plug-in loader is not closed.
+     *
+     * @since 1.1.0
+     */
+    @Override
+    public void close() {
+        closed = true;
+        bulkheads.values().forEach(ThreadPoolExecutor::shutdownNow);
+    }
+
+    /**
+     * Creates daemon threads named {@code plugin-<name>-<n>}.
+     */
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.prefix = "plugin-" + name + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, prefix + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+    /**
+     * Builder of the {@code PluginExecutor}.
+     *
+     * @param <T> plug-in interface type
+     * @author riru
+     * @version 1.1.0
+     * @since 1.1.0
+     */
+    public static final class Builder<T extends Plugin> {
+
+        private final PluginLoader<T> loader;
+        private int concurrency = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = 0;
+        private Duration timeout = Duration.ofSeconds(30);
+        private ThreadFactory threadFactory;
+
+        private Builder(PluginLoader<T> loader) {
+            this.loader = loader;
+        }
+
+        /**
+         * Set the maximum number of concurrent calls of each plug-in. The default is the number of available
+         * processors.
+         *
+         * @param concurrency maximum number of concurrent calls
+         * @return this builder
+         * @throws IllegalArgumentException if {@code concurrency} is less than {@code 1}
+         * @since 1.1.0
+         */
+        public Builder<T> withConcurrency(int concurrency) {
+
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("Concurrency must be greater than 0.");
+            }
+
+            this.concurrency = concurrency;
+            return this;
+
+        }
+
+        /**
+         * Set the maximum number of calls of each plug-in waiting for a thread. The default is {@code 0}, that rejects
+         * a call when all threads are busy.
+         *
+         * @param queueCapacity maximum number of waiting calls
+         * @return this builder
+         * @throws IllegalArgumentException if {@code queueCapacity} is negative
+         * @since 1.1.0
+         */
+        public Builder<T> withQueueCapacity(int queueCapacity) {
+
+            if (queueCapacity < 0) {
+                throw new IllegalArgumentException("Queue capacity must not be negative.");
+            }
+
+            this.queueCapacity = queueCapacity;
+            return this;
+
+        }
+
+        /**
+         * Set the deadline of a call, measured from its submission. The default is 30 seconds.
+         *
+         * @param timeout deadline of a call
+         * @return this builder
+         * @throws NullPointerException if {@code timeout} is {@code null}
+         * @throws IllegalArgumentException if {@code timeout} is not positive
+         * @since 1.1.0
+         */
+        public Builder<T> withTimeout(Duration timeout) {
+
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("Timeout must be positive.");
+            }
+
+            this.timeout = timeout;
+            return this;
+
+        }
+
+        /**
+         * Set the factory of threads that run the calls. It is shared by all plug-ins.
+         *
+         * @param threadFactory thread factory
+         * @return this builder
+         * @throws NullPointerException if {@code threadFactory} is {@code null}
+         * @since 1.1.0
+         */
+        public Builder<T> withThreadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = Objects.requireNonNull(threadFactory);
+            return this;
+        }
+
+        /**
+         * Build the executor.
+         *
+         * @return new executor
+         * @since 1.1.0
+         */
+        public PluginExecutor<T> build() {
+            return new PluginExecutor<>(this);
+        }
+    }
+}
@@ -25,48 +25,96 @@
  */
 package jp.mydns.projectk.plugin.impl;
 
+import java.io.Closeable;
 import java.io.IOException;
-import java.net.URLClassLoader;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
- * Closer for the {@code PluginLoader}.
+ * Closer for the {@code PluginLoader}. Class loaders are registered when they are created, so only the created ones
+ * are closed. This class is thread-safe.
  *
  * @author riru
- * @version 1.0.0
+ * @version 1.1.0
  * @since 1.0.0
  */
 class PluginLoaderCloser implements Runnable {
 
-    final List<URLClassLoader> loaders;
+    private final List<Closeable> resources = new ArrayList<>();
+    private boolean closed;
+    private volatile boolean explicit;
 
     /**
-     * Constructor.
+     * Register a class loader that was created for a plug-in, or a resource that it depends on. Resources are closed in
+     * the order of registration. If already closed then the resource is closed immediately.
      *
-     * @param loaders all the {@code URLClassLoader} that loaded the plug-in
-     * @throws NullPointerException if {@code loaders} is {@code null}, or it contain any {@code null} elements.
-     * @since 1.0.0
+     * @param resource the {@code URLClassLoader} that loads the plug-in, or a resource that it depends on
+     * @return {@code true} if registered, {@code false} if already closed
+     * @throws NullPointerException if {@code resource} is {@code null}
+     * @since 1.1.0
+     */
+    synchronized boolean register(Closeable resource) {
+
+        if (closed) {
+            silentClose(resource);
+            return false;
+        }
+
+        return resources.add(Objects.requireNonNull(resource));
+
+    }
+
+    /**
+     * Mark that the plug-in loader is closed explicitly, not by the {@code Cleaner}. It is reported by the unload
+     * events.
+     *
+     * @since 1.1.0
      */
-    public PluginLoaderCloser(Collection<URLClassLoader> loaders) {
-        this.loaders = List.copyOf(loaders);
+    void markExplicit() {
+        explicit = true;
     }
 
     /**
-     * Close all managed class-loaders.
+     * Close all managed class-loaders and resources.
      * <p>
      * If occurred I/O error when closing the {@code URLClassLoader} then ignore that. Because can not do anything else.
      *
      * @since 1.0.0
      */
     @Override
-    public void run() {
-        loaders.stream().forEach(this::silentClose);
+    public synchronized void run() {
+        closed = true;
+        resources.stream().forEach(this::closeResource);
+        resources.clear();
+    }
+
+    private void closeResource(Closeable resource) {
+
+        if (!(resource instanceof PluginClassLoader loader)) {
+            silentClose(resource);
+            return;
+        }
+
+        PluginEvents.Unload event = new PluginEvents.Unload();
+        event.begin();
+
+        silentClose(loader);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.pluginName = loader.getPluginName();
+            event.jarPath = loader.getJarPath();
+            event.definedClasses = loader.getDefinedClassCount();
+            event.trigger = explicit ? "close" : "cleaner";
+            event.commit();
+        }
+
     }
 
-    private void silentClose(URLClassLoader loader) {
+    private void silentClose(Closeable resource) {
         try {
-            loader.close();
+            resource.close();
         } catch (IOException ignore) {
             // ignore
         }
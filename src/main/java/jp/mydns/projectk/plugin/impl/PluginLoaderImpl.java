@@ -25,53 +25,82 @@
  */
 package jp.mydns.projectk.plugin.impl;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.lang.System.Logger;
 import static java.lang.System.Logger.Level.*;
 import java.lang.ref.Cleaner;
-import java.lang.reflect.Constructor;
-import java.net.URLClassLoader;
-import java.net.URLConnection;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import static java.util.function.Function.identity;
 import java.util.function.Supplier;
 import static java.util.stream.Collectors.toMap;
 import java.util.stream.Stream;
 import jp.mydns.projectk.plugin.NoSuchPluginException;
 import jp.mydns.projectk.plugin.Plugin;
+import jp.mydns.projectk.plugin.PluginLease;
 import jp.mydns.projectk.plugin.PluginLoader;
 import jp.mydns.projectk.plugin.PluginLoadingException;
+import jp.mydns.projectk.plugin.PluginScope;
 import jp.mydns.projectk.plugin.PluginStorage;
 import jp.mydns.projectk.plugin.PluginStorage.PluginLoadingSource;
 
 /**
  * A simple plug-in loading facility.
+ * <p>
+ * Plug-ins whose main class is not a subtype of the plug-in type are excluded when constructing. It is checked by
+ * reading the class files, so no class loader is created for them.
+ * <p>
+ * Class loaders created by this are tracked by the {@link PluginUnloadTracker}, which reports the class loaders that
+ * are not unloaded after closing.
  *
  * @param <T> plug-in interface type
  * @author riru
- * @version 1.0.0
+ * @version 1.1.0
  * @since 1.0.0
  */
 public class PluginLoaderImpl<T extends Plugin> implements PluginLoader<T> {
 
     private static final Logger LOGGER = System.getLogger(PluginLoaderImpl.class.getName());
 
-    static {
-        // Note: Provisional response to the problem that "commons-vfs" cannot be unloaded.
-        URLConnection.setDefaultUseCaches("file", false);
-        URLConnection.setDefaultUseCaches("jar", false);
-    }
-
     private static final Cleaner CLEANER = Cleaner.create();
 
     private final ClassLoader parent = Thread.currentThread().getContextClassLoader();
-    private final Map<String, Supplier<T>> suppliers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final CaseInsensitiveIndex<PluginSupplier> suppliers;
+    private final Map<Class<?>, PluginSupplier> pooledSuppliers = new ConcurrentHashMap<>();
     private final Class<T> clazz;
-    private final Cleaner.Cleanable cleanable;
+    private final PluginLoaderOptions options;
+    private final PluginLoaderCloser closer = new PluginLoaderCloser();
+    private final Cleaner.Cleanable cleanable = CLEANER.register(this, closer);
+    private final PackageIndex packageIndex;
+    private final VerifiedJars verifiedJars;
+    private final LongAdder leases = new LongAdder();
+    private volatile boolean pinned;
+    private volatile boolean closed;
 
     /**
      * Construct from the {@code PluginStorage}.
@@ -81,21 +110,60 @@ public class PluginLoaderImpl<T extends Plugin> implements PluginLoader<T> {
      * @throws NullPointerException if any argument is {@code null}
      */
     public PluginLoaderImpl(Class<T> clazz, PluginStorage storage) {
+        this(clazz, storage, PluginLoaderOptions.defaults());
+    }
+
+    /**
+     * Construct from the {@code PluginStorage} with options.
+     *
+     * @param clazz plug-in type
+     * @param storage the {@code PluginStorage}
+     * @param options the {@code PluginLoaderOptions}
+     * @throws NullPointerException if any argument is {@code null}
+     * @since 1.1.0
+     */
+    public PluginLoaderImpl(Class<T> clazz, PluginStorage storage, PluginLoaderOptions options) {
 
         Objects.requireNonNull(clazz);
         Objects.requireNonNull(storage);
+        Objects.requireNonNull(options);
 
-        Map<String, URLClassLoader> loaders = storage.stream().collect(
-                toMap(this::toPluginName, this::toURLClassLoader, (first, last) -> last, LinkedHashMap::new));
+        Map<String, PluginLoadingSource> sources = storage.stream().filter(s -> isCompatible(s, clazz)).collect(
+                toMap(this::toPluginName, identity(), (first, last) -> last, LinkedHashMap::new));
 
         this.clazz = clazz;
-        this.cleanable = toCleanable(loaders.values());
-        loaders.entrySet().stream().forEachOrdered(e -> suppliers.put(e.getKey(), new PluginSupplier(e.getValue())));
+        this.options = options;
+        this.packageIndex = options.getPackageIndexFile().map(PackageIndex::of).orElse(null);
+
+        if (packageIndex != null) {
+            closer.register(packageIndex::save);
+        }
+
+        this.verifiedJars = options.getJarVerification() == JarVerification.ONCE
+                ? VerifiedJars.of(options.getVerifiedJarsFile().orElse(null)) : null;
+
+        if (verifiedJars != null) {
+            closer.register(verifiedJars::save);
+        }
+
+        SortedMap<String, PluginSupplier> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        sources.forEach((name, s) -> map.put(name, new PluginSupplier(
+                name, s, options.getScope(name).orElse(s.getScope()), options.getPoolSize())));
+
+        this.suppliers = CaseInsensitiveIndex.of(map);
 
     }
 
-    private Cleaner.Cleanable toCleanable(Collection<URLClassLoader> loaders) {
-        return CLEANER.register(this, new PluginLoaderCloser(loaders));
+    private boolean isCompatible(PluginLoadingSource s, Class<T> clazz) {
+
+        if (PluginTypes.isCompatible(s, clazz, parent)) {
+            return true;
+        }
+
+        LOGGER.log(DEBUG, "Skip a plug-in that is not a %s. Class name is %s.".formatted(clazz.getName(),
+                s.getClassName()));
+        return false;
+
     }
 
     private String toPluginName(PluginStorage.PluginLoadingSource s) {
@@ -107,8 +175,124 @@ public class PluginLoaderImpl<T extends Plugin> implements PluginLoader<T> {
 
     }
 
-    private URLClassLoader toURLClassLoader(PluginLoadingSource s) {
-        return new URLClassLoader(s.getClassName(), s.getClassPath(), parent);
+    private PluginClassLoader toURLClassLoader(String name, PluginLoadingSource s) {
+
+        PluginEvents.ClassLoaderCreation event = new PluginEvents.ClassLoaderCreation();
+        event.begin();
+
+        URL[] classPath = s.getClassPath();
+        ClassLoader loaderParent = parent;
+        Closeable libraries = null;
+
+        if (options.isSharedLibraries()) {
+            try {
+
+                SharedLibraries.Split split = SharedLibraries.split(classPath);
+
+                if (!split.libraries().isEmpty()) {
+                    var lease = SharedLibraries.acquire(split.libraries(), parent);
+                    classPath = split.privateClassPath();
+                    loaderParent = lease.get();
+                    libraries = lease;
+                }
+
+            } catch (IOException ex) {
+                LOGGER.log(WARNING, "Failed to share the libraries of a plug-in. Class paths are %s."
+                        .formatted(Arrays.toString(classPath)), ex);
+                throw new PluginLoadingException("Occurs an I/O error while sharing the plug-in libraries.");
+            }
+        }
+
+        PluginClassLoader loader;
+        Closeable owner;
+
+        if (options.isSharedClassLoaders()) {
+            try {
+
+                var lease = SharedClassLoaders.acquire(name, s.getClassName(), classPath, loaderParent, packageIndex,
+                        verifiedJars);
+                loader = lease.get();
+                owner = lease;
+
+            } catch (IOException ex) {
+                closeQuietly(libraries);
+                LOGGER.log(WARNING, "Failed to share the class loader of a plug-in. Class paths are %s."
+                        .formatted(Arrays.toString(classPath)), ex);
+                throw new PluginLoadingException("Occurs an I/O error while sharing the plug-in class loader.");
+            }
+        } else {
+            loader = new PluginClassLoader(name, s.getClassName(), classPath, loaderParent, packageIndex,
+                    verifiedJars);
+            owner = loader;
+        }
+
+        // Note: The plug-in class loader must be closed before the shared libraries are released. If already closed,
+        // each registration closes the resource immediately.
+        boolean registered = closer.register(owner);
+
+        if (libraries != null) {
+            registered &= closer.register(libraries);
+        }
+
+        if (!registered) {
+            throw new PluginLoadingException("The plug-in loader has already been closed.");
+        }
+
+        options.getClassDataDirectory().ifPresent(d -> replayClassList(new ClassLists(d), s, loader));
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.pluginName = name;
+            event.jarPath = loader.getJarPath();
+            event.sharedLibraries = libraries != null;
+            event.commit();
+        }
+
+        return loader;
+
+    }
+
+    private static void closeQuietly(Closeable resource) {
+        try {
+            if (resource != null) {
+                resource.close();
+            }
+        } catch (IOException ignore) {
+            // ignore
+        }
+    }
+
+    /**
+     * Load the classes recorded in the class list of the plug-in jar file in advance, and record the classes defined
+     * by the class loader when it is closed. Failures are ignored, because the class list is only a hint.
+     */
+    private void replayClassList(ClassLists lists, PluginLoadingSource s, PluginClassLoader loader) {
+
+        String hash;
+
+        try {
+            hash = ContentHashes.sha256(Path.of(s.getClassPath()[0].toURI()));
+        } catch (IOException | URISyntaxException | RuntimeException ex) {
+            LOGGER.log(DEBUG, "Skip the class list of a plug-in. Class name is %s.".formatted(s.getClassName()), ex);
+            return;
+        }
+
+        closer.register(() -> lists.merge(hash, loader.getDefinedClassNames()));
+
+        try {
+
+            for (String className : lists.read(hash)) {
+                try {
+                    Class.forName(className, false, loader);
+                } catch (ClassNotFoundException | LinkageError ex) {
+                    LOGGER.log(TRACE, "Skip a listed class [%s].".formatted(className), ex);
+                }
+            }
+
+        } catch (IOException ex) {
+            LOGGER.log(WARNING, "Failed to read the class list of a plug-in. Class name is %s."
+                    .formatted(s.getClassName()), ex);
+        }
     }
 
     /**
@@ -121,8 +305,92 @@ public class PluginLoaderImpl<T extends Plugin> implements PluginLoader<T> {
      */
     @Override
     public T load(String name) {
-        return Optional.ofNullable(suppliers.get(Objects.requireNonNull(name))).orElseThrow(() -> new NoSuchPluginException(
-                "No such a plug-in [%s]. Availables are %s.".formatted(name, suppliers.keySet()))).get();
+
+        PluginSupplier s = suppliers.get(Objects.requireNonNull(name));
+
+        if (s == null) {
+            throw NoSuchPlugins.of(name, suppliers, options.isLightweightExceptions());
+        }
+
+        return s.get();
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Open leases are counted by a striped counter, so leasing does not contend between threads.
+     *
+     * @throws NullPointerException {@inheritDoc}
+     * @throws NoSuchPluginException {@inheritDoc}
+     * @throws PluginLoadingException {@inheritDoc}
+     * @since 1.1.0
+     */
+    @Override
+    public PluginLease<T> lease(String name) {
+
+        // Note: Count first, then check the state. So either this sees the closing, or the closing sees this lease.
+        leases.increment();
+
+        try {
+
+            T plugin = load(name);
+
+            return PluginLease.of(plugin, () -> {
+                release(plugin);
+                endLease();
+            });
+
+        } catch (RuntimeException | Error ex) {
+            endLease();
+            throw ex;
+        }
+
+    }
+
+    private void endLease() {
+
+        leases.decrement();
+
+        if (closed && !pinned && leases.sum() == 0) {
+            cleanable.clean();
+        }
+
+    }
+
+    /**
+     * Load one plug-in whose use is not tracked. Once this has been called, the class loaders are kept up to the
+     * {@link PluginLoaderOptions#getDrainTimeout()} after closing, same as a lease that is never closed.
+     *
+     * @param name plug-in name. It case insensitive.
+     * @return loaded plug-in
+     * @throws NullPointerException if {@code name} is {@code null}
+     * @throws NoSuchPluginException if no found a plug-in
+     * @throws PluginLoadingException if an error occurs while plug-in loading
+     */
+    T loadPinned(String name) {
+
+        // Note: Pin first, then check the state. So either this sees the closing, or the closing sees this pin.
+        pinned = true;
+
+        return load(name);
+
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException {@inheritDoc}
+     * @throws PluginLoadingException {@inheritDoc}
+     * @since 1.1.0
+     */
+    @Override
+    public Optional<T> find(String name) {
+
+        PluginSupplier s = suppliers.get(Objects.requireNonNull(name));
+
+        return s == null ? Optional.empty() : Optional.of(s.get());
+
     }
 
     /**
@@ -132,45 +400,342 @@ public class PluginLoaderImpl<T extends Plugin> implements PluginLoader<T> {
      */
     @Override
     public Stream<Map.Entry<String, Supplier<T>>> stream() {
-        return suppliers.entrySet().stream();
+        return suppliers.stream().map(e -> Map.entry(e.getKey(), e.getValue()));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException {@inheritDoc}
+     * @since 1.1.0
+     */
+    @Override
+    public void release(T plugin) {
+
+        PluginSupplier s = pooledSuppliers.get(plugin.getClass());
+
+        if (s != null) {
+            s.giveBack(plugin);
+        }
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Before the plug-in is loaded, all classes in its class path are loaded without initialization. Classes of the
+     * shared libraries are not loaded in advance.
+     *
+     * @throws NullPointerException {@inheritDoc}
+     * @throws NoSuchPluginException {@inheritDoc}
+     * @throws PluginLoadingException {@inheritDoc}
+     * @since 1.1.0
+     */
+    @Override
+    public Duration warmUp(String name, boolean invokeHooks) {
+
+        long start = System.nanoTime();
+        PluginSupplier s = suppliers.get(Objects.requireNonNull(name));
+
+        if (s == null) {
+            throw NoSuchPlugins.of(name, suppliers, options.isLightweightExceptions());
+        }
+
+        s.preload();
+        Duration preloaded = Duration.ofNanos(System.nanoTime() - start);
+
+        return preloaded.plus(PluginLoader.super.warmUp(name, invokeHooks));
+
     }
 
     class PluginSupplier implements Supplier<T> {
 
+        final String name;
         final String mainClassName;
-        final URLClassLoader loader;
+        final PluginLoadingSource source;
+        final PluginScope scope;
+        private final int poolSize;
+        private volatile PluginClassLoader loader;
+        private volatile MethodHandle constructor;
+        private volatile T singleton;
+        private final ThreadLocal<AtomicReference<T>> threadLocal = ThreadLocal.withInitial(this::newSlot);
+        private final Set<AtomicReference<T>> slots = Collections.synchronizedSet(Collections.newSetFromMap(
+                new WeakHashMap<>()));
+        private final Deque<T> pool = new ArrayDeque<>();
 
-        PluginSupplier(URLClassLoader e) {
-            this.mainClassName = e.getName();
-            this.loader = e;
+        PluginSupplier(String name, PluginLoadingSource source, PluginScope scope, int poolSize) {
+            this.name = name;
+            this.mainClassName = source.getClassName();
+            this.source = source;
+            this.scope = scope;
+            this.poolSize = poolSize;
         }
 
         @Override
         public T get() {
+
+            if (closed) {
+                throw new PluginLoadingException("The plug-in loader has already been closed.");
+            }
+
+            return switch (scope) {
+                case PROTOTYPE ->
+                    newInstance();
+                case SINGLETON ->
+                    getSingleton();
+                case THREAD_LOCAL ->
+                    getThreadLocal();
+                case POOLED ->
+                    borrow();
+            };
+        }
+
+        private T getSingleton() {
+
+            T p = singleton;
+
+            if (p == null) {
+                synchronized (this) {
+                    p = singleton;
+                    if (p == null) {
+                        singleton = p = newInstance();
+                    }
+                }
+            }
+
+            return p;
+
+        }
+
+        /**
+         * Get the instance of the current thread. The instance is held through a slot, which the thread holds, and
+         * which is also tracked weakly, so that closing can empty the slots of other live threads. A slot of an ended
+         * thread is forgotten together with its instance.
+         */
+        private T getThreadLocal() {
+
+            AtomicReference<T> slot = threadLocal.get();
+            T p = slot.get();
+
+            if (p == null) {
+                slot.set(p = newInstance());
+                // Note: The slot may have been emptied by closing just before it was filled.
+                if (closed) {
+                    slot.set(null);
+                }
+            }
+
+            return p;
+
+        }
+
+        private AtomicReference<T> newSlot() {
+            AtomicReference<T> slot = new AtomicReference<>();
+            slots.add(slot);
+            return slot;
+        }
+
+        private T borrow() {
+
+            T p;
+
+            synchronized (pool) {
+                p = pool.pollFirst();
+            }
+
+            return p != null ? p : newInstance();
+
+        }
+
+        /**
+         * Return an instance to the pool. An instance that is already in the pool is ignored, so releasing twice does
+         * not let two borrowers share it. The state is checked under the lock of the pool, so an instance is never
+         * returned to a pool that has been cleared by closing.
+         */
+        void giveBack(T plugin) {
+
+            synchronized (pool) {
+
+                if (closed || pool.size() >= poolSize || pool.stream().anyMatch(p -> p == plugin)) {
+                    return;
+                }
+
+                pool.offerFirst(plugin);
+
+            }
+        }
+
+        /**
+         * Load all classes in the class path without initialization. A class that can not be loaded is skipped,
+         * because it may depend on an optional library.
+         */
+        void preload() {
+
+            PluginClassLoader l = getLoader();
+            List<String> classNames;
+
             try {
+                classNames = l.listClassNames();
+            } catch (IOException ex) {
+                LOGGER.log(WARNING, "Failed to list classes of a plug-in. Class paths are %s."
+                        .formatted(Arrays.toString(source.getClassPath())), ex);
+                throw new PluginLoadingException("Occurs an I/O error while preloading the plug-in.");
+            }
+
+            for (String className : classNames) {
+                try {
+                    Class.forName(className, false, l);
+                } catch (ClassNotFoundException | LinkageError ex) {
+                    LOGGER.log(DEBUG, "Skip preloading a class [%s].".formatted(className), ex);
+                }
+            }
+        }
+
+        void clear() {
+            singleton = null;
+            threadLocal.remove();
+            synchronized (slots) {
+                slots.forEach(s -> s.set(null));
+            }
+            synchronized (pool) {
+                pool.clear();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private T newInstance() {
+
+            PluginEvents.Instantiation event = new PluginEvents.Instantiation();
+            boolean timed = event.isEnabled();
+            long start = timed ? System.nanoTime() : 0;
+            event.begin();
+
+            try {
+
+                MethodHandle h = resolveConstructor();
+                long resolved = timed ? System.nanoTime() : 0;
+                T p = (T) (Plugin) h.invokeExact();
+                long end = timed ? System.nanoTime() : 0;
+
+                event.end();
+                if (event.shouldCommit()) {
+                    event.pluginName = name;
+                    event.jarPath = PluginEvents.toPath(source.getClassPath()[0]);
+                    event.classLoadTime = resolved - start;
+                    event.constructorTime = end - resolved;
+                    event.commit();
+                }
+
+                return p;
 
-                Class<?> cls = loader.loadClass(mainClassName);
-                Constructor<? extends T> constructor = cls.asSubclass(clazz).getConstructor();
+            } catch (Exception | LinkageError ex) {
+                throw invalidPlugin(ex);
+            } catch (Error ex) {
+                // Note: An error of the Java VM such as OutOfMemoryError is not a fault of the plug-in.
+                throw ex;
+            } catch (Throwable ex) {
+                throw invalidPlugin(ex);
+            }
+        }
+
+        private PluginLoadingException invalidPlugin(Throwable cause) {
+            LOGGER.log(WARNING, "Failed load a plug-in. Class name is %s. Class paths are %s."
+                    .formatted(mainClassName, Arrays.toString(source.getClassPath())), cause);
+            return new PluginLoadingException("An invalid plug-in was found.");
+        }
 
-                return constructor.newInstance();
+        /**
+         * Resolve the public no-arg constructor of the plug-in once, and cache it as a {@code MethodHandle} typed
+         * {@code ()Plugin}. A failed resolution is not cached.
+         */
+        private MethodHandle resolveConstructor() throws ReflectiveOperationException {
 
-            } catch (ReflectiveOperationException | RuntimeException ignore) {
+            MethodHandle h = constructor;
 
-                LOGGER.log(WARNING, "Failed load a plug-in. Class name is %s. Class paths are %s."
-                        .formatted(mainClassName, Arrays.toString(loader.getURLs())), ignore);
-                throw new PluginLoadingException("An invalid plug-in was found.");
+            if (h == null) {
+
+                Class<? extends T> cls = getLoader().loadClass(mainClassName).asSubclass(clazz);
+                h = MethodHandles.publicLookup().findConstructor(cls, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Plugin.class));
+                constructor = h;
+
+                if (scope == PluginScope.POOLED) {
+                    pooledSuppliers.put(cls, this);
+                }
 
             }
+
+            return h;
+
+        }
+
+        /**
+         * Get the class loader of the plug-in. It is created on first use.
+         */
+        private PluginClassLoader getLoader() {
+
+            PluginClassLoader l = loader;
+
+            if (l == null) {
+                synchronized (this) {
+                    l = loader;
+                    if (l == null) {
+                        loader = l = toURLClassLoader(name, source);
+                    }
+                }
+            }
+
+            return l;
+
         }
     }
 
     /**
-     * Close class loader of all plug-in loaded by this.
+     * Close class loader of all plug-in loaded by this. Shared instances held by the {@link PluginScope#SINGLETON} and
+     * {@link PluginScope#POOLED} plug-ins are released.
+     * <p>
+     * New loads are rejected at once. If any lease is open, the class loaders are closed when the last lease is closed
+     * or the {@link PluginLoaderOptions#getDrainTimeout()} has passed, without blocking the caller.
      *
      * @since 1.0.0
      */
     @Override
     public void close() {
-        cleanable.clean();
+
+        closed = true;
+        closer.markExplicit();
+        suppliers.values().forEach(PluginSupplier::clear);
+        pooledSuppliers.clear();
+
+        Duration timeout = options.getDrainTimeout();
+
+        if ((leases.sum() == 0 && !pinned) || timeout.isZero()) {
+            cleanable.clean();
+            return;
+        }
+
+        // Note: The task must not refer to this, otherwise this can not be cleaned by the Cleaner.
+        Cleaner.Cleanable c = cleanable;
+        LongAdder open = leases;
+        Drainer.EXECUTOR.schedule(() -> {
+            if (open.sum() > 0) {
+                LOGGER.log(WARNING, "Close the plug-in class loaders with %d open leases after %s."
+                        .formatted(open.sum(), timeout));
+            }
+            c.clean();
+        }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+
+    }
+
+    /**
+     * Holder of the executor that closes drained plug-in loaders at the timeout.
+     */
+    private static final class Drainer {
+
+        static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "plugin-drainer");
+            t.setDaemon(true);
+            return t;
+        });
     }
 }
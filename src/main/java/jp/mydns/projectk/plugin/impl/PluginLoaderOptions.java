@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import jp.mydns.projectk.plugin.PluginScope;
+
+/**
+ * Options of the {@code PluginLoaderImpl}. This class is immutable.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+public final class PluginLoaderOptions {
+
+    private static final PluginLoaderOptions DEFAULTS = builder().build();
+
+    private final Map<String, PluginScope> scopes;
+    private final int poolSize;
+    private final boolean sharedLibraries;
+    private final boolean sharedClassLoaders;
+    private final Path classDataDirectory;
+    private final Path packageIndexFile;
+    private final boolean lightweightExceptions;
+    private final Duration drainTimeout;
+    private final JarVerification jarVerification;
+    private final Path verifiedJarsFile;
+
+    private PluginLoaderOptions(Builder b) {
+        this.scopes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.scopes.putAll(b.scopes);
+        this.poolSize = b.poolSize;
+        this.sharedLibraries = b.sharedLibraries;
+        this.sharedClassLoaders = b.sharedClassLoaders;
+        this.classDataDirectory = b.classDataDirectory;
+        this.packageIndexFile = b.packageIndexFile;
+        this.lightweightExceptions = b.lightweightExceptions;
+        this.drainTimeout = b.drainTimeout;
+        this.jarVerification = b.jarVerification;
+        this.verifiedJarsFile = b.verifiedJarsFile;
+    }
+
+    /**
+     * Returns the default options.
+     *
+     * @return default options
+     * @since 1.1.0
+     */
+    public static PluginLoaderOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Returns a new builder.
+     *
+     * @return new builder
+     * @since 1.1.0
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get the instance scope that overrides the scope declared by the plug-in.
+     *
+     * @param name plug-in name. It case insensitive.
+     * @return plug-in scope. Empty if not overridden.
+     * @throws NullPointerException if {@code name} is {@code null}
+     * @since 1.1.0
+     */
+    public Optional<PluginScope> getScope(String name) {
+        return Optional.ofNullable(scopes.get(Objects.requireNonNull(name)));
+    }
+
+    /**
+     * Get the maximum number of idle instances kept in the pool of each {@link PluginScope#POOLED} plug-in.
+     *
+     * @return pool size
+     * @since 1.1.0
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Whether library jar files with the same contents are loaded by a shared class loader.
+     *
+     * @return {@code true} if shared
+     * @since 1.1.0
+     */
+    public boolean isSharedLibraries() {
+        return sharedLibraries;
+    }
+
+    /**
+     * Whether plug-in class loaders are shared with other plug-in loaders in the process.
+     *
+     * @return {@code true} if shared
+     * @since 1.1.0
+     */
+    public boolean isSharedClassLoaders() {
+        return sharedClassLoaders;
+    }
+
+    /**
+     * Get the directory where the classes loaded by each plug-in are recorded.
+     *
+     * @return class data directory. Empty if not recorded.
+     * @since 1.1.0
+     */
+    public Optional<Path> getClassDataDirectory() {
+        return Optional.ofNullable(classDataDirectory);
+    }
+
+    /**
+     * Get the file where the packages of the plug-in jar files are indexed.
+     *
+     * @return package index file. Empty if the packages are indexed only in memory.
+     * @since 1.1.0
+     */
+    public Optional<Path> getPackageIndexFile() {
+        return Optional.ofNullable(packageIndexFile);
+    }
+
+    /**
+     * Whether the {@code NoSuchPluginException} is thrown without the stack trace.
+     *
+     * @return {@code true} if without the stack trace
+     * @since 1.1.0
+     */
+    public boolean isLightweightExceptions() {
+        return lightweightExceptions;
+    }
+
+    /**
+     * Get the maximum time that closing waits for the open leases before closing the class loaders.
+     *
+     * @return drain timeout
+     * @since 1.1.0
+     */
+    public Duration getDrainTimeout() {
+        return drainTimeout;
+    }
+
+    /**
+     * Get the verification policy of the signed plug-in jar files.
+     *
+     * @return jar verification policy
+     * @since 1.1.0
+     */
+    public JarVerification getJarVerification() {
+        return jarVerification;
+    }
+
+    /**
+     * Get the file where the content hashes of the verified jar files are recorded.
+     *
+     * @return verified jars file. Empty if they are recorded only in memory.
+     * @since 1.1.0
+     */
+    public Optional<Path> getVerifiedJarsFile() {
+        return Optional.ofNullable(verifiedJarsFile);
+    }
+
+    /**
+     * Builder of the {@code PluginLoaderOptions}.
+     *
+     * @author riru
+     * @version 1.1.0
+     * @since 1.1.0
+     */
+    public static final class Builder {
+
+        private final Map<String, PluginScope> scopes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private int poolSize = Runtime.getRuntime().availableProcessors();
+        private boolean sharedLibraries;
+        private boolean sharedClassLoaders;
+        private Path classDataDirectory;
+        private Path packageIndexFile;
+        private boolean lightweightExceptions;
+        private Duration drainTimeout = Duration.ofSeconds(30);
+        private JarVerification jarVerification = JarVerification.ALWAYS;
+        private Path verifiedJarsFile;
+
+        private Builder() {
+        }
+
+        /**
+         * Set the instance scope of a plug-in. It overrides the scope declared by the plug-in.
+         *
+         * @param name plug-in name. It case insensitive.
+         * @param scope plug-in scope
+         * @return this builder
+         * @throws NullPointerException if any argument is {@code null}
+         * @since 1.1.0
+         */
+        public Builder withScope(String name, PluginScope scope) {
+            scopes.put(Objects.requireNonNull(name), Objects.requireNonNull(scope));
+            return this;
+        }
+
+        /**
+         * Set the maximum number of idle instances kept in the pool of each {@link PluginScope#POOLED} plug-in. The
+         * default is the number of available processors.
+         *
+         * @param poolSize pool size
+         * @return this builder
+         * @throws IllegalArgumentException if {@code poolSize} is less than {@code 1}
+         * @since 1.1.0
+         */
+        public Builder withPoolSize(int poolSize) {
+
+            if (poolSize < 1) {
+                throw new IllegalArgumentException("Pool size must be greater than 0.");
+            }
+
+            this.poolSize = poolSize;
+            return this;
+
+        }
+
+        /**
+         * Set whether library jar files with the same contents are loaded by a shared class loader. The default is
+         * {@code false}.
+         * <p>
+         * When enabled, the library jar files of a plug-in are hashed, and plug-ins that have the same library jar
+         * files share one reference-counted class loader of them as the parent of their own class loaders. The
+         * plug-in's main jar file and loose classes stay in its own class loader. Library classes are loaded once, but
+         * a library can no longer see the plug-in's own classes through its defining class loader. Enable it only when
+         * the libraries do not load plug-in classes by name, or they use the thread context class loader.
+         *
+         * @param sharedLibraries {@code true} if shared
+         * @return this builder
+         * @since 1.1.0
+         */
+        public Builder withSharedLibraries(boolean sharedLibraries) {
+            this.sharedLibraries = sharedLibraries;
+            return this;
+        }
+
+        /**
+         * Set whether plug-in class loaders are shared with other plug-in loaders in the process. The default is
+         * {@code false}.
+         * <p>
+         * When enabled, plug-in loaders that have the same parent class loader and load the same plug-in jar file, by
+         * path and content hash, with the same library class path share one reference-counted class loader of it. It
+         * is closed when the last plug-in loader using it is closed or cleaned. Plug-in classes are loaded once in the
+         * process, but their static state is also shared by the plug-in loaders. Plug-in instances are not shared.
+         * <p>
+         * Plug-in loaders share class loaders only if they use the same {@linkplain #withPackageIndexFile(Path) package
+         * index file} and the same {@linkplain #withVerifiedJarsFile(Path) verified jars file}, or none of them, and
+         * the same {@linkplain #withJarVerification(JarVerification) jar verification}.
+         *
+         * @param sharedClassLoaders {@code true} if shared
+         * @return this builder
+         * @since 1.1.0
+         */
+        public Builder withSharedClassLoaders(boolean sharedClassLoaders) {
+            this.sharedClassLoaders = sharedClassLoaders;
+            return this;
+        }
+
+        /**
+         * Set the directory where the classes loaded by each plug-in are recorded. The default is not recorded.
+         * <p>
+         * When set, names of the classes defined by a plug-in class loader are merged into a class list in the
+         * directory when it is closed, keyed by the content hash of the plug-in jar file. When a plug-in class loader
+         * is created and a class list of the same jar file exists, the listed classes are loaded in advance. Run a
+         * training run under the {@code -XX:ArchiveClassesAtExit} given by the {@link ClassDataArchive}, then the
+         * recorded classes are dumped into a dynamic CDS archive, and later runs define them from the archive without
+         * parsing and verification.
+         *
+         * @param classDataDirectory class data directory
+         * @return this builder
+         * @throws NullPointerException if {@code classDataDirectory} is {@code null}
+         * @since 1.1.0
+         */
+        public Builder withClassDataDirectory(Path classDataDirectory) {
+            this.classDataDirectory = Objects.requireNonNull(classDataDirectory);
+            return this;
+        }
+
+        /**
+         * Set the file where the packages of the plug-in jar files are indexed. The default is indexed only in memory.
+         * <p>
+         * A plug-in class loader indexes the packages of its jar files on first lookup, to look up a class or resource
+         * only in the jar files that contain its package. When set, the index is read from the file when the plug-in
+         * loader is constructed, and rewritten when it is closed if anything changed. A jar file whose size and last
+         * modified time are unchanged is not opened for indexing.
+         *
+         * @param packageIndexFile package index file
+         * @return this builder
+         * @throws NullPointerException if {@code packageIndexFile} is {@code null}
+         * @since 1.1.0
+         */
+        public Builder withPackageIndexFile(Path packageIndexFile) {
+            this.packageIndexFile = Objects.requireNonNull(packageIndexFile);
+            return this;
+        }
+
+        /**
+         * Set whether the {@code NoSuchPluginException} is thrown without the stack trace. The default is
+         * {@code false}.
+         * <p>
+         * Enable it when names that may not exist are often loaded and the misses are handled by the caller. Filling in
+         * the stack trace is the main cost of a miss. To probe a name without any exception, use
+         * {@link jp.mydns.projectk.plugin.PluginLoader#find(java.lang.String)}.
+         *
+         * @param lightweightExceptions {@code true} if without the stack trace
+         * @return this builder
+         * @since 1.1.0
+         */
+        public Builder withLightweightExceptions(boolean lightweightExceptions) {
+            this.lightweightExceptions = lightweightExceptions;
+            return this;
+        }
+
+        /**
+         * Set the maximum time that closing waits for the open leases before closing the class loaders. The default is
+         * 30 seconds.
+         * <p>
+         * When the plug-in loader is closed while leases obtained by
+         * {@link jp.mydns.projectk.plugin.PluginLoader#lease(java.lang.String)} are open, new loads are rejected at
+         * once, and the class loaders are closed when the last lease is closed or this timeout has passed, whichever
+         * comes first. Plug-ins obtained by {@code load} are not waited for.
+         *
+         * @param drainTimeout drain timeout. {@link Duration#ZERO} means that the class loaders are closed at once.
+         * @return this builder
+         * @throws NullPointerException if {@code drainTimeout} is {@code null}
+         * @throws IllegalArgumentException if {@code drainTimeout} is negative
+         * @since 1.1.0
+         */
+        public Builder withDrainTimeout(Duration drainTimeout) {
+
+            if (drainTimeout.isNegative()) {
+                throw new IllegalArgumentException("Drain timeout must not be negative.");
+            }
+
+            this.drainTimeout = drainTimeout;
+            return this;
+
+        }
+
+        /**
+         * Set the verification policy of the signed plug-in jar files. The default is {@link JarVerification#ALWAYS}.
+         * <p>
+         * With the {@link JarVerification#ONCE}, a jar file is verified on first open, and later it is opened without
+         * verification while its content hash is unchanged. It is faster to load classes from the signed jar files,
+         * but the classes carry no code signers.
+         *
+         * @param jarVerification jar verification policy
+         * @return this builder
+         * @throws NullPointerException if {@code jarVerification} is {@code null}
+         * @since 1.1.0
+         */
+        public Builder withJarVerification(JarVerification jarVerification) {
+            this.jarVerification = Objects.requireNonNull(jarVerification);
+            return this;
+        }
+
+        /**
+         * Set the file where the content hashes of the verified jar files are recorded, for the
+         * {@link JarVerification#ONCE}. The default is recorded only in memory of each plug-in loader.
+         * <p>
+         * When set, the hashes are read from the file when the plug-in loader is constructed, and rewritten when it is
+         * closed if any jar file was verified.
+         *
+         * @param verifiedJarsFile verified jars file
+         * @return this builder
+         * @throws NullPointerException if {@code verifiedJarsFile} is {@code null}
+         * @since 1.1.0
+         */
+        public Builder withVerifiedJarsFile(Path verifiedJarsFile) {
+            this.verifiedJarsFile = Objects.requireNonNull(verifiedJarsFile);
+            return this;
+        }
+
+        /**
+         * Build the options.
+         *
+         * @return new options
+         * @since 1.1.0
+         */
+        public PluginLoaderOptions build() {
+            return new PluginLoaderOptions(this);
+        }
+    }
+}
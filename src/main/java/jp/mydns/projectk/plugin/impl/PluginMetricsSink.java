@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+/**
+ * Destination of the metrics recorded by the {@link InstrumentedPluginLoader}.
+ * <p>
+ * A {@code Recorder} is requested once per plug-in and method, and then called on every invocation. Implementations
+ * must be thread-safe, and {@link Recorder#record(long, boolean)} should be cheap because it runs on the caller's
+ * thread.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+@FunctionalInterface
+public interface PluginMetricsSink {
+
+    /**
+     * Get the recorder of a plug-in method.
+     *
+     * @param pluginName plug-in name
+     * @param methodName method name of the plug-in interface
+     * @return recorder
+     * @since 1.1.0
+     */
+    Recorder recorder(String pluginName, String methodName);
+
+    /**
+     * Recorder of the invocations of a plug-in method.
+     *
+     * @author riru
+     * @version 1.1.0
+     * @since 1.1.0
+     */
+    @FunctionalInterface
+    interface Recorder {
+
+        /**
+         * Record an invocation.
+         *
+         * @param nanos elapsed time in nanoseconds
+         * @param failed {@code true} if the invocation threw an exception
+         * @since 1.1.0
+         */
+        void record(long nanos, boolean failed);
+    }
+}
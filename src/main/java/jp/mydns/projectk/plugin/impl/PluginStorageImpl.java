@@ -29,30 +29,33 @@ import java.io.IOException;
 import java.lang.System.Logger;
 import static java.lang.System.Logger.Level.*;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.jar.Attributes;
-import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.stream.Stream;
 import jp.mydns.projectk.plugin.PluginLoadingException;
+import jp.mydns.projectk.plugin.PluginScope;
 import jp.mydns.projectk.plugin.PluginStorage;
 
 /**
  * Implements of the {@code PluginStorage}.
  *
  * @author riru
- * @version 1.0.0
+ * @version 1.1.0
  * @since 1.0.0
  */
 public class PluginStorageImpl implements PluginStorage {
 
     private static final Logger LOGGER = System.getLogger(PluginStorageImpl.class.getName());
     private static final String PLUGINFILE_EXTENTION = ".jar";
+    private final ManifestIndex index;
     private final List<PluginLoadingSource> sources;
 
     /**
@@ -65,8 +68,96 @@ public class PluginStorageImpl implements PluginStorage {
      * @since 1.0.0
      */
     public PluginStorageImpl(Path... storages) {
-        this.sources = List.of(storages).stream().flatMap(this::toChildren)
-                .filter(p -> p.toString().endsWith(PLUGINFILE_EXTENTION)).flatMap(this::toPluginLoadingSource).toList();
+        this(1, storages);
+    }
+
+    /**
+     * Construct from plug-in stored directories with parallel discovery. Directories are listed and jar files are
+     * analyzed on a dedicated pool of {@code parallelism} threads. The order of the discovered plug-ins is the same as
+     * serial discovery, so the one found last still takes priority.
+     *
+     * @param parallelism maximum number of threads used for discovery. {@code 1} means serial discovery on the
+     * current thread.
+     * @param storages directories where the plug-in jar files are stored. The one specified later has priority.
+     * @throws NullPointerException if {@code storages} is {@code null} or it contains {@code null} element.
+     * @throws IllegalArgumentException if {@code parallelism} is less than {@code 1}
+     * @throws PluginLoadingException if occurs unexpected error
+     * @since 1.1.0
+     */
+    public PluginStorageImpl(int parallelism, Path... storages) {
+        this((Path) null, parallelism, storages);
+    }
+
+    /**
+     * Construct from plug-in stored directories with a persistent manifest index. The index file records the path,
+     * size, last modified time and main class of each jar file, and only new or changed jar files are analyzed. The
+     * index file is rewritten atomically after discovery if anything changed. If the index file is broken or cannot be
+     * written then it is ignored, because it is only a cache.
+     *
+     * @param indexFile index file of the jar manifests. {@code null} means that no index is used.
+     * @param parallelism maximum number of threads used for discovery. {@code 1} means serial discovery on the
+     * current thread.
+     * @param storages directories where the plug-in jar files are stored. The one specified later has priority.
+     * @throws NullPointerException if {@code storages} is {@code null} or it contains {@code null} element.
+     * @throws IllegalArgumentException if {@code parallelism} is less than {@code 1}
+     * @throws PluginLoadingException if occurs unexpected error
+     * @since 1.1.0
+     */
+    public PluginStorageImpl(Path indexFile, int parallelism, Path... storages) {
+        this(indexFile != null ? new ManifestIndex(indexFile) : null, parallelism, storages);
+    }
+
+    /**
+     * Construct from plug-in stored directories with a manifest index that is shared by repeated discovery.
+     *
+     * @param index manifest index. {@code null} means that no index is used.
+     * @param parallelism maximum number of threads used for discovery. {@code 1} means serial discovery on the
+     * current thread.
+     * @param storages directories where the plug-in jar files are stored. The one specified later has priority.
+     * @throws NullPointerException if {@code storages} is {@code null} or it contains {@code null} element.
+     * @throws IllegalArgumentException if {@code parallelism} is less than {@code 1}
+     * @throws PluginLoadingException if occurs unexpected error
+     * @since 1.1.0
+     */
+    PluginStorageImpl(ManifestIndex index, int parallelism, Path... storages) {
+
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be greater than 0.");
+        }
+
+        List<Path> dirs = List.of(storages);
+
+        this.index = index;
+        this.sources = parallelism == 1 ? discover(dirs, false) : discoverParallel(dirs, parallelism);
+
+        if (index != null) {
+            index.save();
+        }
+
+    }
+
+    private List<PluginLoadingSource> discover(List<Path> dirs, boolean parallel) {
+
+        Stream<Path> dirStream = parallel ? dirs.parallelStream() : dirs.stream();
+        List<Path> files = dirStream.flatMap(this::toChildren)
+                .filter(p -> p.toString().endsWith(PLUGINFILE_EXTENTION)).toList();
+
+        Stream<Path> fileStream = parallel ? files.parallelStream() : files.stream();
+        return fileStream.flatMap(this::toPluginLoadingSource).toList();
+
+    }
+
+    private List<PluginLoadingSource> discoverParallel(List<Path> dirs, int parallelism) {
+
+        // Note: A parallel stream runs on the pool from which it was started. Encounter order is kept by toList().
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try {
+            return pool.submit(() -> discover(dirs, true)).join();
+        } finally {
+            pool.shutdown();
+        }
+
     }
 
     /**
@@ -83,8 +174,22 @@ public class PluginStorageImpl implements PluginStorage {
 
         if (Files.isDirectory(dir)) {
 
+            PluginEvents.DirectoryScan event = new PluginEvents.DirectoryScan();
+            event.begin();
+
             try (Stream<Path> files = Files.list(dir)) {
-                return files.toList().stream();
+
+                List<Path> children = files.toList();
+
+                event.end();
+                if (event.shouldCommit()) {
+                    event.directory = dir.toString();
+                    event.entries = children.size();
+                    event.commit();
+                }
+
+                return children.stream();
+
             } catch (IOException ex) {
                 LOGGER.log(WARNING, String.format("I/O error occurs when opening the directory. [%s]", dir), ex);
                 throw new PluginLoadingException("Occurs an I/O error while searching the plug-in files.");
@@ -100,31 +205,93 @@ public class PluginStorageImpl implements PluginStorage {
 
     private Stream<PluginLoadingSource> toPluginLoadingSource(Path file) {
 
-        try (var j = new JarFile(file.toFile());) {
+        try {
+
+            Optional<PluginManifest> mf = index != null ? index.resolve(file, PluginStorageImpl::readManifest)
+                    : readManifest(file);
 
-            Manifest mf = j.getManifest();
-            String mainName = Optional.ofNullable(mf).map(Manifest::getMainAttributes)
-                    .map(a -> a.getValue(Attributes.Name.MAIN_CLASS)).orElseThrow(
-                    () -> new NoSuchElementException("Could not find a valid manifest file as a plug-in within jar file."));
+            if (mf.isEmpty()) {
+                LOGGER.log(DEBUG, "Could not find a valid manifest file as a plug-in within jar file. [%s]"
+                        .formatted(file));
+                return Stream.empty();
+            }
 
-            return Stream.of(new PluginLoadingSourceImpl(mainName, file));
+            return Stream.of(new PluginLoadingSourceImpl(mf.get(), file));
 
         } catch (IOException | RuntimeException ignore) {
 
-            LOGGER.log(DEBUG, String.format("Occurs an error while analysis the jar file as a plug-in.", file), ignore);
+            LOGGER.log(DEBUG, "Occurs an error while analysis the jar file as a plug-in. [%s]".formatted(file), ignore);
             return Stream.empty();
 
         }
     }
 
-    private class PluginLoadingSourceImpl implements PluginLoadingSource {
+    /**
+     * Read the plug-in attributes from the manifest of the jar file.
+     *
+     * @param file jar file
+     * @return plug-in attributes. Empty if the jar file is not a plug-in.
+     * @throws IOException if occurs I/O error. It may be transient, such as too many open files or the jar file being
+     * written, so the caller must not remember it as not a plug-in.
+     * @since 1.1.0
+     */
+    static Optional<PluginManifest> readManifest(Path file) throws IOException {
+
+        PluginEvents.ManifestRead event = new PluginEvents.ManifestRead();
+        event.begin();
+
+        try {
+
+            Optional<Attributes> attrs = ManifestReader.read(file).map(Manifest::getMainAttributes);
+            Optional<String> mainName = attrs.map(a -> a.getValue(Attributes.Name.MAIN_CLASS));
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.jarPath = file.toString();
+                event.mainClass = mainName.orElse(null);
+                event.commit();
+            }
+
+            return mainName.map(n -> new PluginManifest(n, attrs.map(a -> a.getValue(PluginScope.ATTRIBUTE_NAME))
+                    .map(v -> toScope(v, file)).orElse(PluginScope.PROTOTYPE)));
+
+        } catch (RuntimeException ignore) {
+
+            LOGGER.log(DEBUG, "Occurs an error while analysis the jar file as a plug-in. [%s]".formatted(file), ignore);
+            return Optional.empty();
+
+        }
+    }
+
+    private static PluginScope toScope(String value, Path file) {
+
+        try {
+
+            return PluginScope.ofAttributeValue(value);
+
+        } catch (IllegalArgumentException ex) {
+
+            LOGGER.log(WARNING, "Ignore an unknown plug-in scope [%s] of [%s].".formatted(value, file));
+            return PluginScope.PROTOTYPE;
+
+        }
+    }
+
+    /**
+     * Plug-in loading source of a jar file. Its library directory is the directory of the same name as the jar file
+     * without the extension.
+     */
+    static class PluginLoadingSourceImpl implements PluginLoadingSource {
 
         private final String mainClassName;
+        private final PluginScope scope;
         private final URL mainJar;
         private final URL libraryDirectory;
+        private volatile URL[] classPath;
 
-        PluginLoadingSourceImpl(String mainName, Path mainJar) throws MalformedURLException {
-            this.mainClassName = mainName;
+        PluginLoadingSourceImpl(PluginManifest mf, Path mainJar) throws MalformedURLException {
+            this.mainClassName = mf.mainClassName();
+            this.scope = mf.scope();
             this.mainJar = mainJar.toUri().toURL();
             this.libraryDirectory = toLibraryDirectory(mainJar);
         }
@@ -144,9 +311,56 @@ public class PluginStorageImpl implements PluginStorage {
             return mainClassName;
         }
 
+        /**
+         * Returns the main jar file, the library directory and the jar files in it in name order. The library jar files
+         * are listed on first call.
+         */
         @Override
         public URL[] getClassPath() {
-            return new URL[]{mainJar, libraryDirectory};
+
+            URL[] urls = classPath;
+
+            if (urls == null) {
+                classPath = urls = toClassPath();
+            }
+
+            return urls.clone();
+
+        }
+
+        private URL[] toClassPath() {
+
+            List<URL> urls = new ArrayList<>();
+            urls.add(mainJar);
+            urls.add(libraryDirectory);
+
+            try {
+
+                Path dir = Path.of(libraryDirectory.toURI());
+
+                if (Files.isDirectory(dir)) {
+                    try (Stream<Path> files = Files.list(dir)) {
+                        List<Path> jars = files.filter(f -> f.toString().endsWith(PLUGINFILE_EXTENTION)).sorted()
+                                .toList();
+                        for (Path f : jars) {
+                            urls.add(f.toUri().toURL());
+                        }
+                    }
+                }
+
+            } catch (IOException | URISyntaxException ex) {
+                LOGGER.log(WARNING, "I/O error occurs when opening the library directory. [%s]"
+                        .formatted(libraryDirectory), ex);
+                throw new PluginLoadingException("Occurs an I/O error while searching the plug-in libraries.");
+            }
+
+            return urls.toArray(URL[]::new);
+
+        }
+
+        @Override
+        public PluginScope getScope() {
+            return scope;
         }
     }
 }
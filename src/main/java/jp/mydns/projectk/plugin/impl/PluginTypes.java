@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.System.Logger;
+import static java.lang.System.Logger.Level.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.ZipFile;
+import jp.mydns.projectk.plugin.PluginStorage.PluginLoadingSource;
+
+/**
+ * Checks whether the main class of a plug-in is compatible with a plug-in type, without defining any class.
+ * <p>
+ * The class file headers of the main class and its super types are read from the class path of the plug-in, and a
+ * super type that is not in the class path is resolved by the parent class loader without initialization. Unlike the
+ * class loader, the class path of the plug-in is searched first, so that classes of the plug-in are not loaded by the
+ * parent. If the hierarchy cannot be determined, the plug-in is regarded as compatible, and the check is left to the
+ * loading.
+ * <p>
+ * A result is cached by the path, size and last modified time of each class path entry, the main class and the
+ * plug-in type. So a changed library jar file, or a library jar file added to or removed from the library directory,
+ * gets a new result. The least recently used results are evicted, so that the results of replaced jar files do not
+ * accumulate over reloads. A result that was determined by a class file in a directory entry is not cached, since the
+ * class file can change without changing the directory.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+final class PluginTypes {
+
+    private static final Logger LOGGER = System.getLogger(PluginTypes.class.getName());
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int MAX_CACHED_RESULTS = 4096;
+    private static final Map<Key, Boolean> CACHE = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+            return size() > MAX_CACHED_RESULTS;
+        }
+    });
+
+    private PluginTypes() {
+    }
+
+    /**
+     * Check whether the main class of the plug-in is a subtype of the {@code type}.
+     *
+     * @param source plug-in loading source
+     * @param type plug-in type
+     * @param parent parent class loader of the plug-in
+     * @return {@code false} if the main class is surely not a subtype of the {@code type}
+     * @since 1.1.0
+     */
+    static boolean isCompatible(PluginLoadingSource source, Class<?> type, ClassLoader parent) {
+
+        URL[] classPath = source.getClassPath();
+        Key key;
+
+        try {
+
+            List<Stamp> stamps = new ArrayList<>(classPath.length);
+
+            for (URL url : classPath) {
+                stamps.add(Stamp.of(Path.of(url.toURI()).toAbsolutePath()));
+            }
+
+            key = new Key(List.copyOf(stamps), source.getClassName(), type.getName());
+
+        } catch (IOException | URISyntaxException | RuntimeException ex) {
+            LOGGER.log(TRACE, "Skip the type check of a plug-in. Class name is %s.".formatted(source.getClassName()),
+                    ex);
+            return true;
+        }
+
+        Boolean cached = CACHE.get(key);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        Boolean compatible;
+        boolean cacheable;
+
+        try (var h = new Hierarchy(classPath, parent)) {
+            compatible = h.isSubtype(source.getClassName(), type, new HashSet<>());
+            cacheable = !h.readDirectory;
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.log(TRACE, "Skip the type check of a plug-in. Class name is %s.".formatted(source.getClassName()),
+                    ex);
+            return true;
+        }
+
+        if (compatible == null) {
+            return true;
+        }
+
+        if (cacheable) {
+            CACHE.put(key, compatible);
+        }
+
+        return compatible;
+
+    }
+
+    /**
+     * Read the binary names of the super class and the interfaces from a class file. Only the header of the class file
+     * is read.
+     *
+     * @param in class file
+     * @return binary names of the super types
+     * @throws IOException if {@code in} is not a class file
+     * @since 1.1.0
+     */
+    static List<String> readSupertypes(InputStream in) throws IOException {
+
+        DataInputStream data = new DataInputStream(in);
+
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a class file.");
+        }
+
+        data.readUnsignedShort();
+        data.readUnsignedShort();
+
+        // Note: Only the UTF-8 and class entries are kept. Long and double entries take two slots.
+        int count = data.readUnsignedShort();
+        String[] utf8 = new String[count];
+        int[] classes = new int[count];
+
+        for (int i = 1; i < count; i++) {
+
+            int tag = data.readUnsignedByte();
+
+            switch (tag) {
+                case 1 ->
+                    utf8[i] = data.readUTF();
+                case 7 ->
+                    classes[i] = data.readUnsignedShort();
+                case 8, 16, 19, 20 ->
+                    data.skipNBytes(2);
+                case 15 ->
+                    data.skipNBytes(3);
+                case 3, 4, 9, 10, 11, 12, 17, 18 ->
+                    data.skipNBytes(4);
+                case 5, 6 -> {
+                    data.skipNBytes(8);
+                    i++;
+                }
+                default ->
+                    throw new IOException("Unknown constant pool tag %d.".formatted(tag));
+            }
+        }
+
+        data.readUnsignedShort();
+        data.readUnsignedShort();
+
+        List<String> supertypes = new ArrayList<>();
+        int superClass = data.readUnsignedShort();
+
+        if (superClass != 0) {
+            supertypes.add(toBinaryName(utf8[classes[superClass]]));
+        }
+
+        int interfaces = data.readUnsignedShort();
+
+        for (int i = 0; i < interfaces; i++) {
+            supertypes.add(toBinaryName(utf8[classes[data.readUnsignedShort()]]));
+        }
+
+        return supertypes;
+
+    }
+
+    private static String toBinaryName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+
+    private record Key(List<Stamp> classPath, String mainClassName, String typeName) {
+    }
+
+    /**
+     * Identity of a class path entry. An entry that does not exist has a size of {@code -1}.
+     */
+    private record Stamp(Path path, long size, long lastModified) {
+
+        static Stamp of(Path path) throws IOException {
+
+            if (!Files.exists(path)) {
+                return new Stamp(path, -1, 0);
+            }
+
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+
+            return new Stamp(path, attrs.size(), attrs.lastModifiedTime().toMillis());
+
+        }
+    }
+
+    /**
+     * Class hierarchy in a class path. Jar files are opened on first use.
+     */
+    private static final class Hierarchy implements Closeable {
+
+        private final URL[] classPath;
+        private final ClassLoader parent;
+        private final JarFile[] jars;
+        boolean readDirectory;
+
+        Hierarchy(URL[] classPath, ClassLoader parent) {
+            this.classPath = classPath;
+            this.parent = parent;
+            this.jars = new JarFile[classPath.length];
+        }
+
+        /**
+         * Returns {@code true} if a subtype, {@code false} if not, or {@code null} if unknown.
+         */
+        Boolean isSubtype(String className, Class<?> type, Set<String> visited) throws IOException {
+
+            if (className.equals(type.getName())) {
+                return true;
+            }
+
+            if (!visited.add(className)) {
+                return false;
+            }
+
+            List<String> supertypes = className.startsWith("java.") ? null : findSupertypes(className);
+
+            if (supertypes == null) {
+                try {
+                    return type.isAssignableFrom(Class.forName(className, false, parent));
+                } catch (ClassNotFoundException | LinkageError ex) {
+                    return null;
+                }
+            }
+
+            Boolean result = false;
+
+            for (String s : supertypes) {
+
+                Boolean r = isSubtype(s, type, visited);
+
+                if (r == Boolean.TRUE) {
+                    return true;
+                }
+
+                if (r == null) {
+                    result = null;
+                }
+
+            }
+
+            return result;
+
+        }
+
+        private List<String> findSupertypes(String className) throws IOException {
+
+            String entryName = className.replace('.', '/') + ".class";
+
+            for (int i = 0; i < classPath.length; i++) {
+
+                URL url = classPath[i];
+
+                Path path;
+
+                try {
+                    path = Path.of(url.toURI());
+                } catch (URISyntaxException ex) {
+                    throw new IOException("Unsupported class path [%s].".formatted(url), ex);
+                }
+
+                if (!Files.exists(path)) {
+                    continue;
+                }
+
+                if (Files.isDirectory(path)) {
+
+                    Path file = path.resolve(entryName);
+
+                    if (Files.isRegularFile(file)) {
+                        readDirectory = true;
+                        try (InputStream in = Files.newInputStream(file)) {
+                            return readSupertypes(in);
+                        }
+                    }
+
+                } else {
+
+                    if (jars[i] == null) {
+                        jars[i] = new JarFile(path.toFile(), false, ZipFile.OPEN_READ, Runtime.version());
+                    }
+
+                    JarEntry e = jars[i].getJarEntry(entryName);
+
+                    if (e != null) {
+                        try (InputStream in = jars[i].getInputStream(e)) {
+                            return readSupertypes(in);
+                        }
+                    }
+
+                }
+            }
+
+            return null;
+
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (JarFile j : jars) {
+                if (j != null) {
+                    j.close();
+                }
+            }
+        }
+    }
+}
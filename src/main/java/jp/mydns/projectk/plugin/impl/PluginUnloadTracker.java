@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.net.URL;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracker of the plug-in class loaders, for diagnosing class loaders that are not unloaded.
+ * <p>
+ * Each class loader created for a plug-in is tracked by a {@code PhantomReference}, which is enqueued only after the
+ * class loader and all of its classes became unreachable. A class loader that has been closed but is still reachable
+ * after some garbage collections is pinned by someone, e.g. a plug-in instance, a thread or a static cache, and it
+ * leaks metaspace. The number of garbage collections is the sum of all {@code GarbageCollectorMXBean}.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+public final class PluginUnloadTracker {
+
+    private static final PluginUnloadTracker INSTANCE = new PluginUnloadTracker();
+
+    private final ReferenceQueue<PluginClassLoader> queue = new ReferenceQueue<>();
+    private final Set<Tracked> tracked = ConcurrentHashMap.newKeySet();
+    private final LongAdder unloaded = new LongAdder();
+
+    private PluginUnloadTracker() {
+    }
+
+    /**
+     * Returns the process-wide tracker.
+     *
+     * @return the {@code PluginUnloadTracker}
+     * @since 1.1.0
+     */
+    public static PluginUnloadTracker getInstance() {
+        return INSTANCE;
+    }
+
+    Tracked track(PluginClassLoader loader, String pluginName, LongAdder definedClasses) {
+
+        expunge();
+
+        URL[] urls = loader.getURLs();
+        Tracked t = new Tracked(loader, queue, pluginName, urls.length > 0 ? urls[0] : null, definedClasses);
+        tracked.add(t);
+
+        return t;
+
+    }
+
+    private void expunge() {
+        for (Reference<?> r; (r = queue.poll()) != null;) {
+            if (tracked.remove((Tracked) r)) {
+                unloaded.increment();
+            }
+        }
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).filter(c -> c > 0).sum();
+    }
+
+    /**
+     * Returns the status of all plug-in class loaders that are not yet unloaded, ordered by plug-in name.
+     *
+     * @return class loader statuses
+     * @since 1.1.0
+     */
+    public List<LoaderStatus> getLoaders() {
+
+        expunge();
+        long gcs = gcCount();
+
+        return tracked.stream().map(t -> t.toStatus(gcs))
+                .sorted(Comparator.comparing(LoaderStatus::pluginName)).toList();
+
+    }
+
+    /**
+     * Returns the plug-in class loaders that have been closed but are still reachable after the specified number of
+     * garbage collections. They are suspected to be leaked.
+     *
+     * @param minGcCount minimum number of garbage collections since closed
+     * @return suspected class loader statuses
+     * @throws IllegalArgumentException if {@code minGcCount} is negative
+     * @since 1.1.0
+     */
+    public List<LoaderStatus> findLeakSuspects(int minGcCount) {
+
+        if (minGcCount < 0) {
+            throw new IllegalArgumentException("Minimum GC count must not be negative.");
+        }
+
+        return getLoaders().stream().filter(s -> s.closed() && s.gcCountSinceClosed() >= minGcCount).toList();
+
+    }
+
+    /**
+     * Returns the number of plug-in class loaders that have been unloaded since the process started.
+     *
+     * @return number of unloaded class loaders
+     * @since 1.1.0
+     */
+    public long getUnloadedCount() {
+
+        expunge();
+
+        return unloaded.sum();
+
+    }
+
+    /**
+     * Status of a plug-in class loader.
+     *
+     * @param pluginName plug-in name
+     * @param jar plug-in jar file. It is {@code null} if the class path is empty.
+     * @param definedClasses number of classes defined by the class loader
+     * @param closed whether the class loader has been closed
+     * @param gcCountSinceClosed number of garbage collections since the class loader was closed. Zero if not closed.
+     * @author riru
+     * @version 1.1.0
+     * @since 1.1.0
+     */
+    public record LoaderStatus(String pluginName, URL jar, long definedClasses, boolean closed,
+            long gcCountSinceClosed) {
+
+    }
+
+    /**
+     * Phantom reference to a tracked class loader.
+     */
+    static final class Tracked extends PhantomReference<PluginClassLoader> {
+
+        private static final long NOT_CLOSED = -1;
+
+        private final String pluginName;
+        private final URL jar;
+        private final LongAdder definedClasses;
+        private volatile long gcCountAtClose = NOT_CLOSED;
+
+        private Tracked(PluginClassLoader loader, ReferenceQueue<PluginClassLoader> queue, String pluginName, URL jar,
+                LongAdder definedClasses) {
+            super(loader, queue);
+            this.pluginName = Objects.requireNonNull(pluginName);
+            this.jar = jar;
+            this.definedClasses = definedClasses;
+        }
+
+        void markClosed() {
+            if (gcCountAtClose == NOT_CLOSED) {
+                gcCountAtClose = gcCount();
+            }
+        }
+
+        private LoaderStatus toStatus(long gcs) {
+
+            long atClose = gcCountAtClose;
+            boolean closed = atClose != NOT_CLOSED;
+
+            return new LoaderStatus(pluginName, jar, definedClasses.sum(), closed, closed ? gcs - atClose : 0);
+
+        }
+    }
+}
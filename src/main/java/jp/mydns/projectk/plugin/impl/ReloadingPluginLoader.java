@@ -0,0 +1,534 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import static java.lang.System.Logger.Level.*;
+import java.net.URISyntaxException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static java.nio.file.StandardWatchEventKinds.*;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import static java.util.function.Function.identity;
+import java.util.function.Supplier;
+import static java.util.stream.Collectors.toMap;
+import java.util.stream.Stream;
+import jp.mydns.projectk.plugin.NoSuchPluginException;
+import jp.mydns.projectk.plugin.Plugin;
+import jp.mydns.projectk.plugin.PluginLease;
+import jp.mydns.projectk.plugin.PluginLoader;
+import jp.mydns.projectk.plugin.PluginLoadingException;
+import jp.mydns.projectk.plugin.PluginStorage;
+import jp.mydns.projectk.plugin.PluginStorage.PluginLoadingSource;
+
+/**
+ * A plug-in loader that follows changes of the plug-in stored directories.
+ * <p>
+ * The directories are watched by a {@code WatchService}. When a burst of changes has settled for the quiet period, the
+ * directories are scanned again. Manifests of unchanged jar files are not read again, entries of unchanged jar files
+ * are kept, and only new or changed jar files get a new class loader. Plug-ins that are not a subtype of the plug-in
+ * type are excluded in the same way as the {@link PluginLoaderImpl}. Then a new immutable snapshot of the plug-ins is
+ * published atomically. Lookups never block, and a load in progress keeps using the snapshot it started with. A
+ * directory that does not exist yet is watched through its parent directory, and is picked up when it is created.
+ * <p>
+ * A replaced or removed plug-in is closed when it is no longer used. A plug-in obtained by the {@link #lease(String)}
+ * is kept until its lease is closed. This loader can not know when a plug-in obtained by the {@link #load(String)},
+ * the {@link #find(String)} or the {@link #stream()} is no longer used, so it is kept only for the
+ * {@link PluginLoaderOptions#getDrainTimeout()} after it was replaced. Callers that may use a plug-in longer than that
+ * must use the {@code lease(String)}.
+ * <p>
+ * Since the watching thread refers to this loader, it must be closed explicitly.
+ *
+ * @param <T> plug-in interface type
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+public class ReloadingPluginLoader<T extends Plugin> implements PluginLoader<T> {
+
+    private static final Logger LOGGER = System.getLogger(ReloadingPluginLoader.class.getName());
+    private static final Duration DEFAULT_QUIET_PERIOD = Duration.ofMillis(500);
+
+    private final Class<T> clazz;
+    private final PluginLoaderOptions options;
+    private final List<Path> storages;
+    private final Duration quietPeriod;
+    private final ClassLoader parent = Thread.currentThread().getContextClassLoader();
+    private final ManifestIndex manifests = new ManifestIndex(null);
+    private final AtomicReference<CaseInsensitiveIndex<Entry<T>>> snapshot
+            = new AtomicReference<>(CaseInsensitiveIndex.empty());
+    private final Object reloadLock = new Object();
+    private final WatchService watcher;
+    private final Set<Path> watched = new HashSet<>();
+    private final Thread watcherThread;
+    private volatile boolean closed;
+
+    /**
+     * Construct from plug-in stored directories. Changes are picked up after a quiet period of 500 milliseconds.
+     *
+     * @param clazz plug-in type
+     * @param storages directories where the plug-in jar files are stored. The one specified later has priority.
+     * @throws NullPointerException if any argument is {@code null} or {@code storages} contains {@code null} element.
+     * @throws PluginLoadingException if occurs unexpected error
+     * @since 1.1.0
+     */
+    public ReloadingPluginLoader(Class<T> clazz, Path... storages) {
+        this(clazz, PluginLoaderOptions.defaults(), DEFAULT_QUIET_PERIOD, storages);
+    }
+
+    /**
+     * Construct from plug-in stored directories.
+     *
+     * @param clazz plug-in type
+     * @param options the {@code PluginLoaderOptions}
+     * @param quietPeriod period without any changes before the directories are scanned again
+     * @param storages directories where the plug-in jar files are stored. The one specified later has priority.
+     * @throws NullPointerException if any argument is {@code null} or {@code storages} contains {@code null} element.
+     * @throws IllegalArgumentException if {@code quietPeriod} is negative
+     * @throws PluginLoadingException if occurs unexpected error
+     * @since 1.1.0
+     */
+    public ReloadingPluginLoader(Class<T> clazz, PluginLoaderOptions options, Duration quietPeriod, Path... storages) {
+
+        this.clazz = Objects.requireNonNull(clazz);
+        this.options = Objects.requireNonNull(options);
+        this.quietPeriod = Objects.requireNonNull(quietPeriod);
+        this.storages = List.of(storages);
+
+        if (quietPeriod.isNegative()) {
+            throw new IllegalArgumentException("Quiet period must not be negative.");
+        }
+
+        reload();
+
+        try {
+
+            this.watcher = FileSystems.getDefault().newWatchService();
+            register(true);
+
+        } catch (IOException ex) {
+            LOGGER.log(WARNING, "I/O error occurs when watching the directories. %s".formatted(this.storages), ex);
+            throw new PluginLoadingException("Occurs an I/O error while watching the plug-in files.");
+        }
+
+        this.watcherThread = new Thread(this::watch, "plugin-reloader");
+        this.watcherThread.setDaemon(true);
+        this.watcherThread.start();
+
+    }
+
+    /**
+     * Scan the plug-in stored directories and publish a new snapshot. It is called by the watching thread, and can be
+     * called explicitly to pick up changes immediately.
+     *
+     * @throws PluginLoadingException if occurs unexpected error
+     * @since 1.1.0
+     */
+    public void reload() {
+
+        synchronized (reloadLock) {
+
+            if (closed) {
+                return;
+            }
+
+            CaseInsensitiveIndex<Entry<T>> current = snapshot.get();
+            SortedMap<String, Entry<T>> next = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+            PluginStorage storage = new PluginStorageImpl(manifests, 1, storages.toArray(Path[]::new));
+
+            // Note: The one found last has priority, so the names are resolved before building any loader.
+            Map<String, PluginLoadingSource> sources = storage.stream().filter(this::isCompatible).collect(toMap(
+                    s -> toPluginName(s.getClassName()), identity(), (first, last) -> last, LinkedHashMap::new));
+
+            try {
+
+                sources.forEach((name, s) -> JarKey.of(s).ifPresent(key -> {
+                    Entry<T> old = current.get(name);
+                    next.put(name, old != null && old.key.equals(key) ? old : new Entry<>(name, key, newLoader(s)));
+                }));
+
+            } catch (RuntimeException ex) {
+                next.values().stream().filter(e -> current.get(e.name) != e).forEach(Entry::retire);
+                throw ex;
+            }
+
+            snapshot.set(CaseInsensitiveIndex.of(next));
+
+            current.values().filter(e -> next.get(e.name) != e).forEach(Entry::retire);
+            next.values().stream().filter(e -> current.get(e.name) != e)
+                    .forEach(e -> LOGGER.log(DEBUG, "Published a plug-in [%s] of %s.".formatted(e.name, e.key.jar)));
+
+        }
+
+    }
+
+    private boolean isCompatible(PluginLoadingSource s) {
+
+        if (PluginTypes.isCompatible(s, clazz, parent)) {
+            return true;
+        }
+
+        LOGGER.log(DEBUG, "Skip a plug-in that is not a %s. Class name is %s.".formatted(clazz.getName(),
+                s.getClassName()));
+        return false;
+
+    }
+
+    private PluginLoaderImpl<T> newLoader(PluginLoadingSource s) {
+        return new PluginLoaderImpl<>(clazz, () -> Stream.of(s), options);
+    }
+
+    private static String toPluginName(String className) {
+
+        int idx = className.lastIndexOf('.');
+
+        return idx > 0 ? className.substring(idx + 1) : className;
+
+    }
+
+    /**
+     * Register the plug-in stored directories to the watcher. A directory that does not exist is watched through its
+     * parent directory until it is created. It is called by the constructor, and then only by the watching thread.
+     */
+    private void register(boolean initial) throws IOException {
+
+        for (Path dir : storages) {
+
+            Path target = Files.isDirectory(dir) ? dir : dir.toAbsolutePath().getParent();
+
+            if (target == null || !Files.isDirectory(target)) {
+                if (initial) {
+                    LOGGER.log(WARNING, "Can not watch a plug-in stored directory, because neither it nor its parent"
+                            + " directory exists. Changes are picked up only by an explicit reload. [%s]"
+                            .formatted(dir));
+                }
+                continue;
+            }
+
+            if (watched.add(target)) {
+                target.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            }
+        }
+    }
+
+    private void watch() {
+
+        try {
+
+            while (!closed) {
+
+                WatchKey key = watcher.take();
+                drain(key);
+
+                // Debounce: wait until no more changes arrive within the quiet period.
+                while ((key = watcher.poll(quietPeriod.toNanos(), TimeUnit.NANOSECONDS)) != null) {
+                    drain(key);
+                }
+
+                try {
+                    register(false);
+                } catch (IOException ex) {
+                    LOGGER.log(WARNING, "I/O error occurs when watching the directories. %s".formatted(storages), ex);
+                }
+
+                try {
+                    reload();
+                } catch (RuntimeException ex) {
+                    LOGGER.log(WARNING, "Failed to reload the plug-ins. Keep the current plug-ins.", ex);
+                }
+
+            }
+
+        } catch (InterruptedException | ClosedWatchServiceException ignore) {
+            // Closed.
+        }
+
+    }
+
+    private void drain(WatchKey key) {
+
+        key.pollEvents();
+
+        // A deleted directory is registered again if it is created again.
+        if (!key.reset()) {
+            watched.remove((Path) key.watchable());
+        }
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A replaced or removed plug-in is kept only for the drain timeout of the options. Use the {@link #lease(String)}
+     * to keep it while in use.
+     *
+     * @throws NullPointerException {@inheritDoc}
+     * @throws NoSuchPluginException {@inheritDoc}
+     * @throws PluginLoadingException {@inheritDoc}
+     * @since 1.1.0
+     */
+    @Override
+    public T load(String name) {
+        return find(name, true).orElseThrow();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A replaced or removed plug-in is closed after its leases are closed, up to the drain timeout of the options.
+     *
+     * @throws NullPointerException {@inheritDoc}
+     * @throws NoSuchPluginException {@inheritDoc}
+     * @throws PluginLoadingException {@inheritDoc}
+     * @since 1.1.0
+     */
+    @Override
+    public PluginLease<T> lease(String name) {
+
+        Objects.requireNonNull(name);
+
+        while (true) {
+
+            CaseInsensitiveIndex<Entry<T>> current = snapshot.get();
+            Entry<T> e = current.get(name);
+
+            if (e == null) {
+                throw NoSuchPlugins.of(name, current, options.isLightweightExceptions());
+            }
+
+            // Note: The lease of the plug-in loader keeps its class loader after the entry is retired.
+            if (e.acquire()) {
+                try {
+                    return e.loader.lease(e.name);
+                } finally {
+                    e.release();
+                }
+            }
+
+        }
+
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A replaced or removed plug-in is kept only for the drain timeout of the options. Use the {@link #lease(String)}
+     * to keep it while in use.
+     *
+     * @throws NullPointerException {@inheritDoc}
+     * @throws PluginLoadingException {@inheritDoc}
+     * @since 1.1.0
+     */
+    @Override
+    public Optional<T> find(String name) {
+        return find(name, false);
+    }
+
+    private Optional<T> find(String name, boolean required) {
+
+        Objects.requireNonNull(name);
+
+        while (true) {
+
+            CaseInsensitiveIndex<Entry<T>> current = snapshot.get();
+            Entry<T> e = current.get(name);
+
+            if (e == null) {
+                if (required) {
+                    throw NoSuchPlugins.of(name, current, options.isLightweightExceptions());
+                }
+                return Optional.empty();
+            }
+
+            // A retired entry fails to acquire after it has been closed. Then retry with the new snapshot.
+            // Note: The use of the returned plug-in is not tracked, so the plug-in loader keeps its class loader up to
+            // the drain timeout after the entry is retired.
+            if (e.acquire()) {
+                try {
+                    return Optional.of(e.loader.loadPinned(e.name));
+                } finally {
+                    e.release();
+                }
+            }
+
+        }
+
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.1.0
+     */
+    @Override
+    public Stream<Map.Entry<String, Supplier<T>>> stream() {
+        return snapshot.get().keys().map(n -> Map.entry(n, () -> load(n)));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException {@inheritDoc}
+     * @since 1.1.0
+     */
+    @Override
+    public void release(T plugin) {
+
+        Entry<T> e = snapshot.get().get(toPluginName(plugin.getClass().getName()));
+
+        if (e != null) {
+            e.loader.release(plugin);
+        }
+
+    }
+
+    /**
+     * Stop watching, and close class loader of all plug-in loaded by this. A plug-in in loading is closed when the
+     * loading ends.
+     *
+     * @since 1.1.0
+     */
+    @Override
+    public void close() {
+
+        synchronized (reloadLock) {
+
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            snapshot.getAndSet(CaseInsensitiveIndex.empty()).values().forEach(Entry::retire);
+
+        }
+
+        try {
+            watcher.close();
+        } catch (IOException ignore) {
+            // ignore
+        }
+
+        watcherThread.interrupt();
+
+    }
+
+    /**
+     * Identity of a plug-in jar file. A jar file that has the same path, size and last modified time is regarded as
+     * unchanged.
+     */
+    private record JarKey(Path jar, long size, long lastModified) {
+
+        static Optional<JarKey> of(PluginLoadingSource s) {
+            try {
+
+                Path jar = Path.of(s.getClassPath()[0].toURI());
+                BasicFileAttributes attrs = Files.readAttributes(jar, BasicFileAttributes.class);
+
+                return Optional.of(new JarKey(jar, attrs.size(), attrs.lastModifiedTime().toMillis()));
+
+            } catch (IOException | URISyntaxException ignore) {
+
+                // The jar file was removed after scanning. It will be picked up by the next change.
+                LOGGER.log(DEBUG, "Skip a plug-in that is no longer readable. [%s]".formatted(s.getClassName()),
+                        ignore);
+                return Optional.empty();
+
+            }
+        }
+    }
+
+    /**
+     * A published plug-in. It is closed when it has been retired and no load holds it. Closing the plug-in loader
+     * drains its leases and pinned plug-ins.
+     */
+    private static class Entry<T extends Plugin> {
+
+        private static final int CLOSED = -1;
+
+        final String name;
+        final JarKey key;
+        final PluginLoaderImpl<T> loader;
+        private final AtomicInteger leases = new AtomicInteger();
+        private volatile boolean retired;
+
+        Entry(String name, JarKey key, PluginLoaderImpl<T> loader) {
+            this.name = name;
+            this.key = key;
+            this.loader = loader;
+        }
+
+        boolean acquire() {
+
+            int c;
+
+            do {
+                c = leases.get();
+                if (c == CLOSED) {
+                    return false;
+                }
+            } while (!leases.compareAndSet(c, c + 1));
+
+            return true;
+
+        }
+
+        void release() {
+            if (leases.decrementAndGet() == 0 && retired) {
+                tryClose();
+            }
+        }
+
+        void retire() {
+            retired = true;
+            tryClose();
+        }
+
+        private void tryClose() {
+            if (leases.compareAndSet(0, CLOSED)) {
+                loader.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,645 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.System.Logger;
+import static java.lang.System.Logger.Level.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static java.nio.file.StandardOpenOption.*;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import jp.mydns.projectk.plugin.PluginLoadingException;
+import jp.mydns.projectk.plugin.PluginStorage;
+
+/**
+ * Plug-in storage that fetches the plug-in jar files by content hash from an HTTP artifact endpoint.
+ * <p>
+ * A plug-in is identified by the lower case hexadecimal SHA-256 of its jar file, and is fetched from
+ * {@code <endpoint>/<hash>}. Fetched jar files are verified against the hash, and kept in a local cache directory as
+ * {@code <hash>.jar}, so the {@link PluginLoadingSource} points into the cache. A cached jar file is not fetched again.
+ * Missing jar files are fetched in parallel when constructing.
+ * <p>
+ * The cache directory may be shared by processes. Its total size is bounded; when it exceeds the bound, the least
+ * recently used jar files are deleted, except those in use. The last access time of a jar file is updated whenever a
+ * storage uses it. Storages coordinate through a lock file in the cache directory: fetching holds a shared lock and
+ * eviction holds an exclusive lock, so a process never evicts a jar file that another process is fetching or has just
+ * found in the cache.
+ * <p>
+ * Since a plug-in class loader opens its jar files lazily, and a storage can not know when the plug-in loaders stop
+ * using them, a jar file is in use for the life of each process that used it. A process marks it by a shared lock of a
+ * byte range of the lock file, and keeps the lock until it exits, so eviction by any process skips it. So the cache may
+ * exceed the bound by the jar files in use.
+ * <p>
+ * A plug-in jar file fetched by this storage has no library directory, so its libraries must be included in the jar
+ * file.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+public class RemotePluginStorage implements PluginStorage {
+
+    private static final Logger LOGGER = System.getLogger(RemotePluginStorage.class.getName());
+    private static final String ALGORITHM = "SHA-256";
+    private static final String EXTENSION = ".jar";
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final String LOCK_FILE = ".lock";
+    private static final Map<Path, CacheDirectory> DIRECTORIES = new ConcurrentHashMap<>();
+
+    private final List<PluginLoadingSource> sources;
+
+    private RemotePluginStorage(Builder b) {
+
+        List<Path> jars = fetch(b);
+        evict(b.cacheDirectory, b.maxCacheSize);
+
+        List<PluginLoadingSource> list = new ArrayList<>(jars.size());
+
+        for (Path jar : jars) {
+
+            try {
+
+                Optional<PluginManifest> mf = PluginStorageImpl.readManifest(jar);
+
+                if (mf.isEmpty()) {
+                    LOGGER.log(WARNING, "Ignore a fetched jar file that is not a plug-in. [%s]".formatted(jar));
+                    continue;
+                }
+
+                list.add(new PluginStorageImpl.PluginLoadingSourceImpl(mf.get(), jar));
+
+            } catch (IOException ex) {
+                LOGGER.log(WARNING, "Ignore a fetched jar file that is not a plug-in. [%s]".formatted(jar), ex);
+            }
+
+        }
+
+        this.sources = List.copyOf(list);
+
+    }
+
+    /**
+     * Returns a new builder.
+     *
+     * @param endpoint base URI of the artifact endpoint. A plug-in is fetched from {@code <endpoint>/<hash>}.
+     * @param cacheDirectory local cache directory of the jar files
+     * @return new builder
+     * @throws NullPointerException if any argument is {@code null}
+     * @since 1.1.0
+     */
+    public static Builder builder(URI endpoint, Path cacheDirectory) {
+        return new Builder(Objects.requireNonNull(endpoint), Objects.requireNonNull(cacheDirectory));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @since 1.1.0
+     */
+    @Override
+    public Stream<PluginLoadingSource> stream() {
+        return sources.stream();
+    }
+
+    private static List<Path> fetch(Builder b) {
+
+        HttpClient client = b.client != null ? b.client : HttpClient.newBuilder().connectTimeout(b.timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL).build();
+        ExecutorService executor = Executors.newFixedThreadPool(b.parallelism, r -> {
+            Thread t = new Thread(r, "plugin-fetch");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try (CacheLock lock = CacheDirectory.of(b.cacheDirectory).lock(true)) {
+
+            Map<String, CompletableFuture<Path>> futures = new LinkedHashMap<>();
+            for (String hash : b.hashes) {
+                futures.put(hash, CompletableFuture.supplyAsync(() -> fetch(b, client, hash, lock), executor));
+            }
+
+            List<Path> jars = new ArrayList<>(futures.size());
+            List<String> failures = new ArrayList<>();
+
+            for (var e : futures.entrySet()) {
+                try {
+                    jars.add(e.getValue().join());
+                } catch (CompletionException ex) {
+                    LOGGER.log(WARNING, "Failed to fetch a plug-in [%s].".formatted(e.getKey()), ex.getCause());
+                    failures.add(e.getKey());
+                }
+            }
+
+            if (!failures.isEmpty()) {
+                throw new PluginLoadingException("Occurs an error while fetching the plug-ins %s.".formatted(failures));
+            }
+
+            return jars;
+
+        } catch (IOException ex) {
+
+            LOGGER.log(WARNING, "I/O error occurs when locking the cache directory. [%s]".formatted(b.cacheDirectory),
+                    ex);
+            throw new PluginLoadingException("Occurs an I/O error while preparing the plug-in cache.");
+
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+    private static Path fetch(Builder b, HttpClient client, String hash, CacheLock lock) {
+
+        Path jar = b.cacheDirectory.resolve(hash + EXTENSION);
+
+        try {
+
+            if (Files.isRegularFile(jar)) {
+                lock.mark(hash);
+                touch(jar);
+                return jar;
+            }
+
+            HttpRequest request = HttpRequest.newBuilder(b.endpoint.resolve(hash)).timeout(b.timeout).GET().build();
+
+            AtomicFiles.write(jar, tmp -> {
+
+                // Note: The request timeout bounds only the response headers, so the whole download is bounded here.
+                var future = client.sendAsync(request, info -> info.statusCode() == 200
+                        ? HttpResponse.BodySubscribers.ofFile(tmp) : HttpResponse.BodySubscribers.replacing(tmp));
+                HttpResponse<Path> response;
+
+                try {
+                    response = future.get(b.timeout.toNanos(), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException ex) {
+                    future.cancel(true);
+                    throw new IOException("Timed out fetching %s.".formatted(request.uri()), ex);
+                } catch (ExecutionException ex) {
+                    throw ex.getCause() instanceof IOException io ? io : new IOException(ex.getCause());
+                } catch (InterruptedException ex) {
+                    future.cancel(true);
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted fetching %s.".formatted(request.uri()), ex);
+                }
+
+                if (response.statusCode() != 200) {
+                    throw new IOException("Unexpected status %d from %s.".formatted(response.statusCode(),
+                            request.uri()));
+                }
+
+                String actual = digest(tmp);
+
+                if (!actual.equals(hash)) {
+                    throw new IOException("Digest mismatch. Expected %s, but was %s.".formatted(hash, actual));
+                }
+            });
+
+            ContentHashes.evict(jar);
+            lock.mark(hash);
+
+            LOGGER.log(DEBUG, "Fetched a plug-in [%s].".formatted(hash));
+            return jar;
+
+        } catch (IOException ex) {
+            throw new CompletionException(ex);
+        }
+
+    }
+
+    private static String digest(Path file) throws IOException {
+
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(file), MessageDigest.getInstance(
+                ALGORITHM))) {
+
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(in.getMessageDigest().digest());
+
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void touch(Path jar) throws IOException {
+        Files.getFileAttributeView(jar, BasicFileAttributeView.class).setTimes(null, FileTime.fromMillis(
+                System.currentTimeMillis()), null);
+    }
+
+    /**
+     * Delete the least recently used jar files until the cache size is within the bound. Jar files in use by any
+     * process are kept. Failures are ignored, because the cache is only a cache.
+     */
+    private static void evict(Path dir, long maxSize) {
+
+        record Cached(Path file, long size, FileTime lastAccess) {
+
+        }
+
+        // Note: Holding the exclusive lock, no other process is fetching nor marking a jar file in use.
+        try (CacheLock lock = CacheDirectory.of(dir).lock(false)) {
+
+            List<Cached> cached = new ArrayList<>();
+
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path f : files.filter(f -> f.getFileName().toString().endsWith(EXTENSION)).toList()) {
+                    BasicFileAttributes attrs = Files.readAttributes(f, BasicFileAttributes.class);
+                    cached.add(new Cached(f, attrs.size(), attrs.lastAccessTime()));
+                }
+            }
+
+            long total = cached.stream().mapToLong(Cached::size).sum();
+            cached.sort(Comparator.comparing(Cached::lastAccess));
+
+            for (Cached c : cached) {
+
+                if (total <= maxSize) {
+                    break;
+                }
+
+                try {
+                    if (lock.delete(c.file())) {
+                        total -= c.size();
+                        LOGGER.log(DEBUG, "Evicted a cached plug-in. [%s]".formatted(c.file()));
+                    }
+                } catch (IOException ex) {
+                    LOGGER.log(DEBUG, "Failed to evict a cached plug-in. [%s]".formatted(c.file()), ex);
+                }
+
+            }
+
+        } catch (IOException ex) {
+            LOGGER.log(WARNING, "Failed to list the plug-in cache. [%s]".formatted(dir), ex);
+        }
+    }
+
+    /**
+     * Cache directory shared by the storages of the process. The lock file of the cache directory is kept open for the
+     * life of the process, because closing any channel of a file may release all locks the process holds on it.
+     * <p>
+     * The first byte of the lock file coordinates fetching and eviction, and each jar file in use is marked by a shared
+     * lock of one byte at a position derived from its hash. Since a process can not hold overlapping locks of a file,
+     * threads of a process share the lock of the first byte through a local read-write lock, and the marks of the
+     * process are remembered.
+     */
+    private static final class CacheDirectory {
+
+        private final Path dir;
+        private final ReentrantReadWriteLock local = new ReentrantReadWriteLock();
+        private final Map<String, FileLock> marks = new ConcurrentHashMap<>();
+        private FileChannel channel;
+        private FileLock sharedLock;
+        private int sharers;
+
+        private CacheDirectory(Path dir) {
+            this.dir = dir;
+        }
+
+        /**
+         * Returns the cache directory of the process.
+         *
+         * @param dir cache directory
+         * @return cache directory
+         */
+        static CacheDirectory of(Path dir) {
+            return DIRECTORIES.computeIfAbsent(dir, CacheDirectory::new);
+        }
+
+        /**
+         * Lock the cache directory. It is created if it does not exist.
+         *
+         * @param shared {@code true} if shared, {@code false} if exclusive
+         * @return acquired lock
+         * @throws IOException if occurs I/O error
+         */
+        CacheLock lock(boolean shared) throws IOException {
+
+            Lock l = shared ? local.readLock() : local.writeLock();
+            l.lock();
+
+            try {
+
+                if (!shared) {
+                    return new CacheLock(this, l, channel().lock(0, 1, false));
+                }
+
+                synchronized (this) {
+                    if (sharers == 0) {
+                        sharedLock = channel().lock(0, 1, true);
+                    }
+                    sharers++;
+                }
+
+                return new CacheLock(this, l, null);
+
+            } catch (IOException | RuntimeException | Error ex) {
+                l.unlock();
+                throw ex;
+            }
+        }
+
+        private synchronized void unshare() throws IOException {
+            if (--sharers == 0) {
+                sharedLock.release();
+            }
+        }
+
+        private synchronized FileChannel channel() throws IOException {
+
+            if (channel == null) {
+                Files.createDirectories(dir);
+                channel = FileChannel.open(dir.resolve(LOCK_FILE), CREATE, READ, WRITE);
+            }
+
+            return channel;
+
+        }
+
+        private static long position(String hash) {
+            // Note: 60 bits of the hash after the first byte.
+            return Long.parseLong(hash.substring(0, 15), 16) + 1;
+        }
+    }
+
+    /**
+     * Lock of a cache directory across processes and threads.
+     */
+    private static final class CacheLock implements Closeable {
+
+        private final CacheDirectory cache;
+        private final Lock local;
+        private final FileLock exclusive;
+
+        private CacheLock(CacheDirectory cache, Lock local, FileLock exclusive) {
+            this.cache = cache;
+            this.local = local;
+            this.exclusive = exclusive;
+        }
+
+        /**
+         * Mark the jar file of the hash as in use for the life of the process. It needs the shared lock.
+         *
+         * @param hash content hash of the jar file
+         * @throws IOException if occurs I/O error
+         */
+        void mark(String hash) throws IOException {
+
+            if (cache.marks.containsKey(hash)) {
+                return;
+            }
+
+            synchronized (cache) {
+                if (!cache.marks.containsKey(hash)) {
+                    cache.marks.put(hash, cache.channel().lock(CacheDirectory.position(hash), 1, true));
+                }
+            }
+        }
+
+        /**
+         * Delete the jar file unless it is in use by any process. It needs the exclusive lock.
+         *
+         * @param jar jar file
+         * @return {@code true} if deleted
+         * @throws IOException if occurs I/O error
+         */
+        boolean delete(Path jar) throws IOException {
+
+            String name = jar.getFileName().toString();
+            String hash = name.substring(0, name.length() - EXTENSION.length());
+
+            if (!HASH.matcher(hash).matches()) {
+                return Files.deleteIfExists(jar);
+            }
+
+            if (cache.marks.containsKey(hash)) {
+                return false;
+            }
+
+            FileLock unused;
+
+            try {
+                unused = cache.channel().tryLock(CacheDirectory.position(hash), 1, false);
+            } catch (OverlappingFileLockException ex) {
+                // Note: Another jar file in use by this process has the same position.
+                return false;
+            }
+
+            if (unused == null) {
+                return false;
+            }
+
+            try {
+                ContentHashes.evict(jar);
+                return Files.deleteIfExists(jar);
+            } finally {
+                unused.release();
+            }
+        }
+
+        /**
+         * Release the lock.
+         *
+         * @throws IOException if occurs I/O error
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                if (exclusive != null) {
+                    exclusive.release();
+                } else {
+                    cache.unshare();
+                }
+            } finally {
+                local.unlock();
+            }
+        }
+    }
+
+    /**
+     * Builder of the {@code RemotePluginStorage}.
+     *
+     * @author riru
+     * @version 1.1.0
+     * @since 1.1.0
+     */
+    public static final class Builder {
+
+        private final URI endpoint;
+        private final Path cacheDirectory;
+        private final Set<String> hashes = new LinkedHashSet<>();
+        private long maxCacheSize = 1L << 30;
+        private int parallelism = 4;
+        private Duration timeout = Duration.ofSeconds(60);
+        private HttpClient client;
+
+        private Builder(URI endpoint, Path cacheDirectory) {
+            String base = endpoint.toString();
+            this.endpoint = base.endsWith("/") ? endpoint : URI.create(base + "/");
+            this.cacheDirectory = cacheDirectory.toAbsolutePath();
+        }
+
+        /**
+         * Add a plug-in by the content hash of its jar file.
+         *
+         * @param hash lower case hexadecimal SHA-256 of the jar file
+         * @return this builder
+         * @throws NullPointerException if {@code hash} is {@code null}
+         * @throws IllegalArgumentException if {@code hash} is not a lower case hexadecimal SHA-256
+         * @since 1.1.0
+         */
+        public Builder withPlugin(String hash) {
+
+            if (!HASH.matcher(Objects.requireNonNull(hash)).matches()) {
+                throw new IllegalArgumentException("Hash must be a lower case hexadecimal SHA-256.");
+            }
+
+            hashes.add(hash);
+            return this;
+
+        }
+
+        /**
+         * Set the maximum total size of the jar files in the cache directory. The default is 1 GiB. Jar files in use by
+         * any process are kept even if they exceed it.
+         *
+         * @param maxCacheSize maximum total size in bytes
+         * @return this builder
+         * @throws IllegalArgumentException if {@code maxCacheSize} is negative
+         * @since 1.1.0
+         */
+        public Builder withMaxCacheSize(long maxCacheSize) {
+
+            if (maxCacheSize < 0) {
+                throw new IllegalArgumentException("Max cache size must not be negative.");
+            }
+
+            this.maxCacheSize = maxCacheSize;
+            return this;
+
+        }
+
+        /**
+         * Set the maximum number of parallel downloads. The default is {@code 4}.
+         *
+         * @param parallelism maximum number of parallel downloads
+         * @return this builder
+         * @throws IllegalArgumentException if {@code parallelism} is less than {@code 1}
+         * @since 1.1.0
+         */
+        public Builder withParallelism(int parallelism) {
+
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be greater than 0.");
+            }
+
+            this.parallelism = parallelism;
+            return this;
+
+        }
+
+        /**
+         * Set the timeout of connecting and of each download. A download times out if the whole response, including
+         * its body, is not received within it. The default is 60 seconds.
+         *
+         * @param timeout timeout
+         * @return this builder
+         * @throws NullPointerException if {@code timeout} is {@code null}
+         * @throws IllegalArgumentException if {@code timeout} is not positive
+         * @since 1.1.0
+         */
+        public Builder withTimeout(Duration timeout) {
+
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw new IllegalArgumentException("Timeout must be positive.");
+            }
+
+            this.timeout = timeout;
+            return this;
+
+        }
+
+        /**
+         * Set the HTTP client. The default is a new client that follows redirects.
+         *
+         * @param client HTTP client
+         * @return this builder
+         * @throws NullPointerException if {@code client} is {@code null}
+         * @since 1.1.0
+         */
+        public Builder withHttpClient(HttpClient client) {
+            this.client = Objects.requireNonNull(client);
+            return this;
+        }
+
+        /**
+         * Build the storage. Missing jar files are fetched, and the cache is trimmed.
+         *
+         * @return new storage
+         * @throws PluginLoadingException if failed to fetch any plug-in
+         * @since 1.1.0
+         */
+        public RemotePluginStorage build() {
+            return new RemotePluginStorage(this);
+        }
+    }
+}
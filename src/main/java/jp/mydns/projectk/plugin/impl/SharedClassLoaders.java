@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import static java.lang.System.Logger.Level.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plug-in class loaders shared by plug-in loaders in the process.
+ * <p>
+ * A plug-in class loader is identified by its parent class loader, the main class name, its class path, where a jar
+ * file is identified by its path and content hash, and the package index and verified jar files it uses. Plug-in
+ * loaders that load the same plug-in share one class loader of it, so the plug-in classes are loaded once regardless
+ * of the number of plug-in loaders. The shared class loader is reference-counted, and is closed when the last plug-in
+ * loader using it is closed or cleaned.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+final class SharedClassLoaders {
+
+    private static final Logger LOGGER = System.getLogger(SharedClassLoaders.class.getName());
+    private static final LeaseRegistry<Key, PluginClassLoader> REGISTRY = new LeaseRegistry<>();
+
+    private SharedClassLoaders() {
+    }
+
+    /**
+     * Acquire a lease of the shared class loader of the plug-in.
+     *
+     * @param pluginName plug-in name
+     * @param className main class name of the plug-in
+     * @param classPath class path of the plug-in
+     * @param parent parent class loader
+     * @param packageIndex package index, or {@code null} if not used. It is a part of the key, so the class loader is
+     * shared only by the plug-in loaders that use the same package index.
+     * @param verifiedJars verified jar files, or {@code null} if jar files are always verified. It is a part of the
+     * key, so the class loader is shared only by the plug-in loaders that use the same verified jar files.
+     * @return lease of the shared class loader
+     * @throws IOException if occurs I/O error when hashing the jar files
+     * @since 1.1.0
+     */
+    static LeaseRegistry<Key, PluginClassLoader>.Lease acquire(String pluginName, String className, URL[] classPath,
+            ClassLoader parent, PackageIndex packageIndex, VerifiedJars verifiedJars) throws IOException {
+
+        List<String> locations = new ArrayList<>(classPath.length);
+        List<String> identities = new ArrayList<>(classPath.length);
+        for (URL url : classPath) {
+            locations.add(url.toString());
+            identities.add(toIdentity(url));
+        }
+
+        return REGISTRY.acquire(new Key(parent, className, List.copyOf(locations), List.copyOf(identities),
+                packageIndex, verifiedJars), k -> {
+            LOGGER.log(DEBUG, "Create a shared plug-in class loader of %s.".formatted(Arrays.toString(classPath)));
+            return new PluginClassLoader(pluginName, className, classPath, parent, packageIndex, verifiedJars);
+        });
+
+    }
+
+    /**
+     * Returns the number of shared class loaders.
+     *
+     * @return number of shared class loaders
+     * @since 1.1.0
+     */
+    static int size() {
+        return REGISTRY.size();
+    }
+
+    /**
+     * Returns the content hash of a jar file, or the URL of any other class path entry.
+     */
+    private static String toIdentity(URL url) throws IOException {
+
+        try {
+
+            Path p = "file".equals(url.getProtocol()) ? Path.of(url.toURI()) : null;
+
+            return p != null && Files.isRegularFile(p) ? ContentHashes.sha256(p) : url.toString();
+
+        } catch (URISyntaxException | IllegalArgumentException ignore) {
+            return url.toString();
+        }
+    }
+
+    /**
+     * Key of a shared class loader. The parent class loader, the package index and the verified jar files are compared
+     * by identity. The package index and the verified jar files are shared in the process per file, so plug-in loaders
+     * that use the same files share the class loaders.
+     * <p>
+     * The class loader reads the class path by its locations, so they are a part of the key, together with the content
+     * hashes that tell a jar file rewritten in place. Classes of a class loader that verifies jar files once carry no
+     * code signers, so it is not shared with one that verifies them always.
+     *
+     * @param parent parent class loader
+     * @param className main class name of the plug-in
+     * @param locations URLs of the class path entries, in class path order
+     * @param classPath content hashes of the jar files, or URLs of other entries, in class path order
+     * @param packageIndex package index, or {@code null} if not used
+     * @param verifiedJars verified jar files, or {@code null} if jar files are always verified
+     * @since 1.1.0
+     */
+    record Key(ClassLoader parent, String className, List<String> locations, List<String> classPath,
+            PackageIndex packageIndex, VerifiedJars verifiedJars) {
+
+    }
+}
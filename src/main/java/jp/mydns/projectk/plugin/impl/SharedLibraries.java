@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import static java.lang.System.Logger.Level.*;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Class loaders of library jar files shared by plug-ins.
+ * <p>
+ * Library jar files are identified by their content hash. Plug-ins whose library jar files have the same contents in
+ * the same order share one class loader of them, and it is the parent of each plug-in's own class loader. Since all
+ * library jar files of a plug-in are in one class loader, each library can see the classes of all the others, as when
+ * they are not shared. The shared class loader is reference-counted, and is closed when the last plug-in class loader
+ * using it is closed.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+final class SharedLibraries {
+
+    private static final Logger LOGGER = System.getLogger(SharedLibraries.class.getName());
+    private static final String JAR_EXTENSION = ".jar";
+    private static final LeaseRegistry<Key, URLClassLoader> REGISTRY = new LeaseRegistry<>();
+    private static final String LOADER_NAME = "shared-libraries";
+
+    private SharedLibraries() {
+    }
+    /**
+     * Split the plug-in class path into the private part and library jar files. The first entry is the plug-in's main
+     * jar file and is always private. Other jar file entries, and jar files directly in a directory entry, are library
+     * jar files. The directory entries themselves are private, since they contain the plug-in's own loose classes.
+     *
+     * @param classPath class path of the plug-in
+     * @return split class path
+     * @throws IOException if occurs I/O error when listing a directory
+     * @since 1.1.0
+     */
+    static Split split(URL[] classPath) throws IOException {
+
+        List<URL> privates = new ArrayList<>();
+        List<Path> libraries = new ArrayList<>();
+
+        for (int i = 0; i < classPath.length; i++) {
+
+            Path p = toPath(classPath[i]);
+
+            if (i == 0 || p == null) {
+                privates.add(classPath[i]);
+            } else if (Files.isDirectory(p)) {
+                privates.add(classPath[i]);
+                try (Stream<Path> files = Files.list(p)) {
+                    files.filter(f -> f.toString().endsWith(JAR_EXTENSION)).sorted().forEachOrdered(libraries::add);
+                }
+            } else if (p.toString().endsWith(JAR_EXTENSION)) {
+                // Note: A jar file may be listed both in the class path and in a directory of the class path.
+                if (!libraries.contains(p)) {
+                    libraries.add(p);
+                }
+            } else {
+                privates.add(classPath[i]);
+            }
+
+        }
+
+        return new Split(privates.toArray(URL[]::new), List.copyOf(libraries));
+
+    }
+
+    /**
+     * Acquire a lease of the shared class loader of the library jar files.
+     *
+     * @param libraries library jar files
+     * @param parent parent class loader of the shared class loader
+     * @return lease of the shared class loader
+     * @throws IOException if occurs I/O error when hashing the library jar files
+     * @since 1.1.0
+     */
+    static LeaseRegistry<Key, URLClassLoader>.Lease acquire(List<Path> libraries, ClassLoader parent)
+            throws IOException {
+
+        List<String> hashes = new ArrayList<>(libraries.size());
+        for (Path lib : libraries) {
+            hashes.add(ContentHashes.sha256(lib));
+        }
+
+        return REGISTRY.acquire(new Key(parent, List.copyOf(hashes)), k -> {
+            LOGGER.log(DEBUG, "Create a shared library class loader of %s.".formatted(libraries));
+            return new PluginClassLoader(LOADER_NAME, LOADER_NAME, toURLs(libraries), parent);
+        });
+
+    }
+
+    /**
+     * Returns the number of shared class loaders.
+     *
+     * @return number of shared class loaders
+     * @since 1.1.0
+     */
+    static int size() {
+        return REGISTRY.size();
+    }
+
+    private static Path toPath(URL url) {
+        try {
+            return "file".equals(url.getProtocol()) ? Path.of(url.toURI()) : null;
+        } catch (URISyntaxException | IllegalArgumentException ignore) {
+            return null;
+        }
+    }
+
+    private static URL[] toURLs(List<Path> files) throws MalformedURLException {
+
+        URL[] urls = new URL[files.size()];
+
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = files.get(i).toUri().toURL();
+        }
+
+        return urls;
+
+    }
+
+    /**
+     * Plug-in class path split into the private part and library jar files.
+     *
+     * @param privateClassPath class path of the plug-in's own class loader
+     * @param libraries library jar files
+     * @since 1.1.0
+     */
+    record Split(URL[] privateClassPath, List<Path> libraries) {
+
+    }
+
+    /**
+     * Key of a shared class loader. The parent class loader is compared by identity.
+     *
+     * @param parent parent class loader
+     * @param hashes content hashes of the library jar files in class path order
+     * @since 1.1.0
+     */
+    record Key(ClassLoader parent, List<String> hashes) {
+
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.System.Logger;
+import static java.lang.System.Logger.Level.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.ZipFile;
+
+/**
+ * Content hashes of the signed jar files whose signatures were verified, used by the {@link JarVerification#ONCE}
+ * policy. A signed jar file is verified by reading all its entries once, then its content hash is recorded, and later
+ * it is opened without verification. An entry of a signed jar file that is not signed is rejected, so every class of a
+ * recorded jar file was signed. The hashes are persisted in the file if given, otherwise they are kept only in memory.
+ * <p>
+ * An unsigned jar file has nothing to verify, so it is opened as is, without hashing.
+ * <p>
+ * Since a signed jar file may be rewritten at any time, even keeping its size and last modified time, its hash is
+ * taken by the {@link ContentHashes#stableSha256(Path)}, which also compares the file key and the status change time.
+ * The hash is computed once per change of the jar file in the process. A rewrite in place while the jar file is open
+ * is not detected, so the jar files must be replaced by renaming, as the plug-in storages do. If the file system does
+ * not provide the status change time, or the jar file was changed just now, the jar file is copied to a private
+ * temporary file, and the copy is hashed and opened, so that the decision is made on exactly the bytes that are read.
+ * The copy is deleted when it is opened, or when it is closed on platforms that can not delete an open file.
+ * <p>
+ * Plug-in loaders that use the same file, or no file, share one instance in the process, given by the
+ * {@link #of(Path)}, so that they can share the class loaders that use it.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class VerifiedJars {
+
+    private static final Logger LOGGER = System.getLogger(VerifiedJars.class.getName());
+    private static final String HEADER = "# k-plugin-mechanism verified jars v1";
+
+    private static final Map<Path, VerifiedJars> SHARED = new ConcurrentHashMap<>();
+    private static final VerifiedJars IN_MEMORY = new VerifiedJars(null);
+
+    private final Path file;
+    private final Set<String> hashes;
+    private volatile boolean modified;
+
+    /**
+     * Constructor. Read the file if it exists. A broken file is treated as empty.
+     *
+     * @param file file of the verified hashes. {@code null} means that the hashes are kept only in memory.
+     * @since 1.1.0
+     */
+    VerifiedJars(Path file) {
+        this.file = file;
+        this.hashes = file == null ? ConcurrentHashMap.newKeySet() : read(file);
+    }
+
+    /**
+     * Returns the instance of the file shared in the process. It is created on first use.
+     *
+     * @param file file of the verified hashes. {@code null} means that the hashes are kept only in memory.
+     * @return verified jar files
+     * @since 1.1.0
+     */
+    static VerifiedJars of(Path file) {
+        return file == null ? IN_MEMORY : SHARED.computeIfAbsent(file.toAbsolutePath().normalize(), VerifiedJars::new);
+    }
+
+    private static Set<String> read(Path file) {
+
+        Set<String> hashes = ConcurrentHashMap.newKeySet();
+
+        try {
+
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+            if (lines.isEmpty() || !HEADER.equals(lines.get(0))) {
+                LOGGER.log(DEBUG, "Ignore an unknown format verified jars. [%s]".formatted(file));
+                return hashes;
+            }
+
+            hashes.addAll(lines.subList(1, lines.size()));
+            return hashes;
+
+        } catch (NoSuchFileException ignore) {
+
+            return hashes;
+
+        } catch (IOException | RuntimeException ex) {
+
+            LOGGER.log(WARNING, "Ignore a broken verified jars. [%s]".formatted(file), ex);
+            hashes.clear();
+            return hashes;
+
+        }
+    }
+
+    /**
+     * Open the jar file for reading. An unsigned jar file is opened with verification, which has nothing to do. If the
+     * content hash of a signed jar file is recorded then it is opened without verification, otherwise all its entries
+     * are verified and the hash is recorded.
+     *
+     * @param jar jar file
+     * @param version version to resolve the multi-release entries
+     * @return opened jar file
+     * @throws IOException if occurs I/O error
+     * @throws SecurityException if any entry does not match its signature, or is not signed in a signed jar file
+     * @since 1.1.0
+     */
+    JarFile open(Path jar, Runtime.Version version) throws IOException {
+
+        JarFile plain = new JarFile(jar.toFile(), true, ZipFile.OPEN_READ, version);
+        boolean signed;
+
+        try {
+            signed = isSigned(plain);
+        } catch (RuntimeException ex) {
+            plain.close();
+            throw ex;
+        }
+
+        if (!signed) {
+            return plain;
+        }
+
+        plain.close();
+
+        Optional<String> hash = ContentHashes.stableSha256(jar);
+
+        if (hash.isEmpty()) {
+            return openCopy(jar, version);
+        }
+
+        boolean verified = hashes.contains(hash.get());
+        JarFile j = new JarFile(jar.toFile(), !verified, ZipFile.OPEN_READ, version);
+
+        try {
+
+            // Note: The opened file is the hashed one only if the jar file was unchanged meanwhile.
+            if (!hash.equals(ContentHashes.stableSha256(jar))) {
+                j.close();
+                return openCopy(jar, version);
+            }
+
+            if (!verified) {
+                verify(j);
+                record(hash.get(), jar);
+            }
+
+            return j;
+
+        } catch (IOException | RuntimeException ex) {
+            j.close();
+            throw ex;
+        }
+    }
+
+    private JarFile openCopy(Path jar, Runtime.Version version) throws IOException {
+
+        Path copy = Files.createTempFile("verified-", ".jar");
+        JarFile j = null;
+
+        try {
+
+            Files.copy(jar, copy, StandardCopyOption.REPLACE_EXISTING);
+
+            String hash;
+            try (InputStream in = Files.newInputStream(copy)) {
+                hash = ContentHashes.sha256(in);
+            }
+
+            boolean verified = hashes.contains(hash);
+            j = new JarFile(copy.toFile(), !verified, ZipFile.OPEN_READ | ZipFile.OPEN_DELETE, version);
+
+            if (!verified && isSigned(j)) {
+                verify(j);
+                record(hash, jar);
+            }
+
+            return j;
+
+        } catch (IOException | RuntimeException ex) {
+
+            if (j != null) {
+                j.close();
+            }
+
+            throw ex;
+
+        } finally {
+
+            if (j == null) {
+                Files.deleteIfExists(copy);
+            }
+
+        }
+    }
+
+    private void record(String hash, Path jar) {
+        if (hashes.add(hash)) {
+            modified = true;
+            LOGGER.log(DEBUG, "Verified the jar file. [%s]".formatted(jar));
+        }
+    }
+
+    private static boolean isSigned(JarFile jar) {
+        return jar.stream().map(JarEntry::getName).anyMatch(VerifiedJars::isSignature);
+    }
+
+    private static void verify(JarFile jar) throws IOException {
+
+        byte[] buf = new byte[8192];
+
+        // Note: The signature of an entry is verified when the entry was read fully.
+        for (Enumeration<JarEntry> en = jar.entries(); en.hasMoreElements();) {
+
+            JarEntry e = en.nextElement();
+
+            if (e.isDirectory()) {
+                continue;
+            }
+
+            try (InputStream in = jar.getInputStream(e)) {
+                while (in.read(buf) >= 0) {
+                    // Read to the end.
+                }
+            }
+
+            if (e.getCodeSigners() == null && !isSignatureRelated(e.getName())) {
+                throw new SecurityException("An entry of a signed jar file is not signed. [%s]".formatted(
+                        e.getName()));
+            }
+
+        }
+
+    }
+
+    private static boolean isSignature(String name) {
+        return name.startsWith("META-INF/") && name.indexOf('/', 9) < 0 && name.endsWith(".SF");
+    }
+
+    /**
+     * Returns {@code true} if the entry is the manifest, or a signature file or signature block, which are not signed.
+     */
+    private static boolean isSignatureRelated(String name) {
+
+        String upper = name.toUpperCase(Locale.ROOT);
+
+        return upper.startsWith("META-INF/") && upper.indexOf('/', 9) < 0 && (upper.equals("META-INF/MANIFEST.MF")
+                || upper.startsWith("META-INF/SIG-") || upper.endsWith(".SF") || upper.endsWith(".DSA")
+                || upper.endsWith(".RSA") || upper.endsWith(".EC"));
+
+    }
+
+    /**
+     * Returns {@code true} if the content hash is recorded.
+     *
+     * @param hash content hash of a jar file
+     * @return {@code true} if verified
+     * @since 1.1.0
+     */
+    boolean contains(String hash) {
+        return hashes.contains(hash);
+    }
+
+    /**
+     * Rewrite the file atomically if any hash was added. If occurs I/O error then ignore that, because the jar files
+     * are verified again next time.
+     *
+     * @since 1.1.0
+     */
+    void save() {
+
+        if (file == null || !modified) {
+            return;
+        }
+
+        modified = false;
+        try {
+
+            AtomicFiles.write(file, tmp -> {
+                try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                    w.write(HEADER);
+                    w.newLine();
+                    for (String h : hashes) {
+                        w.write(h);
+                        w.newLine();
+                    }
+                }
+            });
+
+        } catch (IOException ex) {
+
+            LOGGER.log(WARNING, "Failed to write the verified jars. [%s]".formatted(file), ex);
+
+        }
+    }
+}
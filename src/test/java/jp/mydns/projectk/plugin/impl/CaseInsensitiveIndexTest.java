@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test of the {@code CaseInsensitiveIndex}.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class CaseInsensitiveIndexTest {
+
+    @Test
+    void testGet() {
+
+        SortedMap<String, Integer> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        IntStream.range(0, 1000).forEach(i -> map.put("Plugin$Impl" + i, i));
+
+        CaseInsensitiveIndex<Integer> index = CaseInsensitiveIndex.of(map);
+
+        IntStream.range(0, 1000).forEach(i -> {
+            assertThat(index.get("Plugin$Impl" + i)).isEqualTo(i);
+            assertThat(index.get("PLUGIN$IMPL" + i)).isEqualTo(i);
+            assertThat(index.get("plugin$impl" + i)).isEqualTo(i);
+        });
+        assertThat(index.get("Plugin$Impl1000")).isNull();
+        assertThat(index.get("")).isNull();
+        assertThat(index.keys()).containsExactlyElementsOf(map.keySet());
+    }
+
+    @Test
+    void testEmpty() {
+        assertThat(CaseInsensitiveIndex.empty().get("any")).isNull();
+        assertThat(CaseInsensitiveIndex.empty().stream()).isEmpty();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import jp.mydns.projectk.plugin.ExecutablePlugin;
+import jp.mydns.projectk.plugin.Plugin;
+import jp.mydns.projectk.plugin.PluginExecutionException;
+import jp.mydns.projectk.plugin.PluginScope;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test of the {@code InstrumentedPluginLoader} and the {@code HistogramMetricsSink}.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class InstrumentedPluginLoaderTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testMetrics() throws IOException {
+
+        TestPlugins.write(tmp.resolve("ok.jar"), Ok.class.getName(), Map.of(PluginScope.ATTRIBUTE_NAME, "pooled"));
+        TestPlugins.write(tmp.resolve("failing.jar"), Failing.class.getName());
+
+        HistogramMetricsSink sink = new HistogramMetricsSink();
+
+        try (var loader = new InstrumentedPluginLoader<>(ExecutablePlugin.class,
+                new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(tmp)), sink)) {
+
+            ExecutablePlugin ok = loader.load("InstrumentedPluginLoaderTest$Ok");
+            assertThat(ok).isNotInstanceOf(Ok.class).isEqualTo(ok)
+                    .isNotEqualTo(loader.load("InstrumentedPluginLoaderTest$Ok"));
+            for (int i = 0; i < 10; i++) {
+                assertThat(ok.execute("x")).startsWith("Argument: x");
+            }
+            assertThat(ok.getVersion()).isEqualTo("1.0.0");
+
+            ExecutablePlugin failing = loader.load("InstrumentedPluginLoaderTest$Failing");
+            assertThatThrownBy(() -> failing.execute("x")).isInstanceOf(PluginExecutionException.class);
+
+            // The raw instance is returned to the pool, and wrapped again.
+            loader.release(ok);
+            assertThat(loader.load("InstrumentedPluginLoaderTest$Ok").toString()).isEqualTo(ok.toString());
+        }
+
+        assertThat(sink.snapshot())
+                .extracting(s -> s.pluginName() + "." + s.methodName(), s -> s.calls(), s -> s.errors())
+                .containsExactly(
+                        tuple("InstrumentedPluginLoaderTest$Failing.execute", 1L, 1L),
+                        tuple("InstrumentedPluginLoaderTest$Ok.execute", 10L, 0L),
+                        tuple("InstrumentedPluginLoaderTest$Ok.getVersion", 1L, 0L));
+        assertThat(sink.snapshot().get(1)).satisfies(s -> assertThat(s.p50()).isPositive().isLessThanOrEqualTo(s.p99())
+                .isLessThanOrEqualTo(s.max()));
+    }
+
+    @Test
+    void testNonPublicInterface() throws IOException {
+
+        TestPlugins.write(tmp.resolve("hello.jar"), Hello.class.getName());
+
+        HistogramMetricsSink sink = new HistogramMetricsSink();
+
+        try (var loader = new InstrumentedPluginLoader<>(Greeting.class,
+                new PluginLoaderImpl<>(Greeting.class, new PluginStorageImpl(tmp)), sink)) {
+            assertThat(loader.load("InstrumentedPluginLoaderTest$Hello").greet()).isEqualTo("Hello");
+        }
+
+        assertThat(sink.snapshot()).extracting(s -> s.methodName()).containsExactly("greet");
+    }
+
+    @Test
+    void testHistogramBuckets() {
+
+        for (int i = 0; i < 100_000; i++) {
+
+            long v = ThreadLocalRandom.current().nextLong(Long.MAX_VALUE) >>> ThreadLocalRandom.current().nextInt(63);
+            long highest = HistogramMetricsSink.Histogram.highestValue(HistogramMetricsSink.Histogram.index(v));
+
+            assertThat(highest).isGreaterThanOrEqualTo(v);
+            assertThat((double) (highest - v)).isLessThanOrEqualTo(Math.max(1, v / 32.0));
+        }
+
+        assertThat(HistogramMetricsSink.Histogram.index(Long.MAX_VALUE)).isEqualTo(1887);
+    }
+
+    public static class Ok extends ExecutablePlugin.Impl {
+    }
+
+    interface Greeting extends Plugin {
+
+        String greet();
+    }
+
+    public static class Hello implements Greeting {
+
+        @Override
+        public String greet() {
+            return "Hello";
+        }
+
+        @Override
+        public String getAbout() {
+            return "Greeting";
+        }
+
+        @Override
+        public String getVersion() {
+            return "1.0.0";
+        }
+    }
+
+    public static class Failing extends ExecutablePlugin.Impl {
+
+        @Override
+        public String execute(String arg) {
+            throw new PluginExecutionException("Failed.");
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test of the {@code ManifestReader}.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class ManifestReaderTest {
+
+    private static final String MANIFEST = "Manifest-Version: 1.0\r\nMain-Class: a.b.Main\r\n\r\n";
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testDeflated() throws IOException {
+
+        Path jar = writeZip("deflated.jar", ZipEntry.DEFLATED, "META-INF/MANIFEST.MF", null);
+
+        assertThat(ManifestReader.read(jar)).get().isEqualTo(jarFileManifest(jar));
+        assertThat(ManifestReader.read(jar).get().getMainAttributes().getValue(Attributes.Name.MAIN_CLASS))
+                .isEqualTo("a.b.Main");
+    }
+
+    @Test
+    void testStoredWithCommentAndLowerCaseName() throws IOException {
+
+        Path jar = writeZip("stored.jar", ZipEntry.STORED, "meta-inf/manifest.mf", "comment");
+
+        assertThat(ManifestReader.read(jar)).get().isEqualTo(jarFileManifest(jar));
+    }
+
+    @Test
+    void testNoManifest() throws IOException {
+
+        Path jar = writeZip("none.jar", ZipEntry.DEFLATED, "a/b/Other.txt", null);
+
+        assertThat(ManifestReader.read(jar)).isEmpty();
+    }
+
+    @Test
+    void testNotZip() throws IOException {
+
+        Path jar = Files.writeString(tmp.resolve("broken.jar"), "not a jar file");
+
+        assertThatThrownBy(() -> ManifestReader.read(jar)).isInstanceOf(IOException.class);
+    }
+
+    private Manifest jarFileManifest(Path jar) throws IOException {
+        try (var j = new JarFile(jar.toFile())) {
+            return j.getManifest();
+        }
+    }
+
+    private Path writeZip(String name, int method, String entryName, String comment) throws IOException {
+
+        Path zip = tmp.resolve(name);
+        byte[] bytes = MANIFEST.getBytes(StandardCharsets.UTF_8);
+
+        try (OutputStream out = Files.newOutputStream(zip); var z = new ZipOutputStream(out)) {
+
+            z.putNextEntry(new ZipEntry("META-INF/"));
+            z.closeEntry();
+
+            ZipEntry e = new ZipEntry(entryName);
+            e.setMethod(method);
+            if (method == ZipEntry.STORED) {
+                CRC32 crc = new CRC32();
+                crc.update(bytes);
+                e.setSize(bytes.length);
+                e.setCrc(crc.getValue());
+            }
+            z.putNextEntry(e);
+            z.write(bytes);
+            z.closeEntry();
+
+            z.putNextEntry(new ZipEntry("a/b/Main.class"));
+            z.write(new byte[128]);
+            z.closeEntry();
+
+            if (comment != null) {
+                z.setComment(comment);
+            }
+        }
+
+        return zip;
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import jp.mydns.projectk.plugin.ExecutablePlugin;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test of the {@code PluginClassLoader}.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class PluginClassLoaderTest {
+
+    private static final String LEAF = Leaf.class.getName().replace('.', '/') + ".class";
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testOwnedJarHandles() throws Exception {
+
+        Path jar = tmp.resolve("leaf.jar");
+        Path lib = Files.createDirectories(tmp.resolve("leaf").resolve("a"));
+        Files.writeString(lib.resolve("hello.txt"), "from directory");
+        writeJar(jar);
+
+        URL[] classPath = {jar.toUri().toURL(), lib.getParent().toUri().toURL()};
+        URL resource;
+
+        try (var loader = new PluginClassLoader("leaf", Leaf.class.getName(), classPath,
+                ClassLoader.getPlatformClassLoader())) {
+
+            Class<?> c = loader.loadClass(Leaf.class.getName());
+            assertThat(c.getClassLoader()).isSameAs(loader);
+            assertThat(c.getPackage().getImplementationVersion()).isEqualTo("1.2.3");
+            assertThat(c.getProtectionDomain().getCodeSource().getLocation()).isEqualTo(jar.toUri().toURL());
+            assertThat(loader.getDefinedClassCount()).isEqualTo(1);
+
+            resource = loader.getResource("a/hello.txt");
+            assertThat(resource.getProtocol()).isEqualTo("jar");
+            assertThat(read(resource.openStream())).isEqualTo("from jar");
+            assertThat(read(loader.getResourceAsStream("a/hello.txt"))).isEqualTo("from jar");
+            assertThat(Collections.list(loader.getResources("a/hello.txt"))).hasSize(2)
+                    .last().satisfies(u -> assertThat(read(u.openStream())).isEqualTo("from directory"));
+            assertThat(loader.getResource("a/none.txt")).isNull();
+        }
+
+        assertThatThrownBy(resource::openStream).isInstanceOf(IOException.class);
+        Files.delete(jar);
+    }
+
+    @Test
+    void testPackageRouting() throws Exception {
+
+        Path jar = tmp.resolve("leaf.jar");
+        Path lib = Files.createDirectories(tmp.resolve("leaf").resolve("a"));
+        Path other = tmp.resolve("other.jar");
+        Files.writeString(lib.resolve("hello.txt"), "from directory");
+        writeJar(jar);
+
+        try (OutputStream out = Files.newOutputStream(other); var j = new JarOutputStream(out)) {
+            for (String name : List.of("a/hello.txt", "b/only.txt", "root.txt", "d/", "d/e/", "d/e/deep.txt")) {
+                j.putNextEntry(new JarEntry(name));
+                j.write(("other " + name).getBytes(StandardCharsets.UTF_8));
+                j.closeEntry();
+            }
+        }
+
+        URL[] classPath = {jar.toUri().toURL(), lib.getParent().toUri().toURL(), other.toUri().toURL()};
+        PackageIndex index = new PackageIndex(tmp.resolve("index").resolve("packages.idx"));
+
+        try (var loader = new PluginClassLoader("leaf", Leaf.class.getName(), classPath,
+                ClassLoader.getPlatformClassLoader(), index)) {
+
+            assertThat(loader.loadClass(Leaf.class.getName()).getClassLoader()).isSameAs(loader);
+            assertThat(Collections.list(loader.getResources("a/hello.txt"))).extracting(u -> read(u.openStream()))
+                    .containsExactly("from jar", "from directory", "other a/hello.txt");
+            assertThat(read(loader.getResourceAsStream("b/only.txt"))).isEqualTo("other b/only.txt");
+            assertThat(read(loader.getResourceAsStream("root.txt"))).isEqualTo("other root.txt");
+            assertThat(loader.getResource("c/none.txt")).isNull();
+
+            // A directory is found with or without the trailing slash, even if its parent has no file.
+            assertThat(loader.getResource("d/e")).isNotNull();
+            assertThat(loader.getResource("d/e/")).isNotNull();
+            assertThat(loader.getResource("d/")).isNotNull();
+        }
+
+        index.save();
+
+        // Unchanged jar files are resolved from the saved index without reading them.
+        PackageIndex saved = new PackageIndex(tmp.resolve("index").resolve("packages.idx"));
+        assertThat(saved.resolve(other, () -> {
+            throw new AssertionError("Must not be read.");
+        })).containsExactlyInAnyOrder("a", "b", "d/e", "");
+    }
+
+    @Test
+    void testPackageSealing() throws Exception {
+
+        Path sealed = tmp.resolve("sealed.jar");
+        Path other = tmp.resolve("other.jar");
+        writeClass(sealed, Leaf.class, "true");
+        writeClass(other, Sibling.class, null);
+
+        URL[] classPath = {sealed.toUri().toURL(), other.toUri().toURL()};
+
+        try (var loader = new PluginClassLoader("leaf", Leaf.class.getName(), classPath,
+                ClassLoader.getPlatformClassLoader())) {
+
+            assertThat(loader.loadClass(Leaf.class.getName()).getPackage().isSealed()).isTrue();
+            assertThatThrownBy(() -> loader.loadClass(Sibling.class.getName()))
+                    .isInstanceOf(SecurityException.class).hasMessageContaining("sealed");
+        }
+    }
+
+    @Test
+    void testUrlConnectionCachesAreEnabled() throws IOException {
+
+        try (var loader = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(tmp))) {
+            assertThat(loader.stream()).isEmpty();
+        }
+
+        assertThat(URLConnection.getDefaultUseCaches("jar")).isTrue();
+        assertThat(URLConnection.getDefaultUseCaches("file")).isTrue();
+    }
+
+    @Test
+    void testJarVerifiedOnce() throws Exception {
+
+        Path jar = tmp.resolve("leaf.jar");
+        Path file = tmp.resolve("verified");
+        writeJar(jar);
+
+        URL[] classPath = {jar.toUri().toURL()};
+        VerifiedJars verified = new VerifiedJars(file);
+
+        try (var loader = new PluginClassLoader("leaf", Leaf.class.getName(), classPath,
+                ClassLoader.getPlatformClassLoader(), null, verified)) {
+            assertThat(loader.loadClass(Leaf.class.getName()).getClassLoader()).isSameAs(loader);
+        }
+
+        // An unsigned jar file has nothing to verify, so it is not hashed.
+        verified.save();
+        assertThat(new VerifiedJars(file).contains(ContentHashes.sha256(jar))).isFalse();
+    }
+
+    @Test
+    void testSignedJarRewrittenInPlace() throws Exception {
+
+        Path unsigned = tmp.resolve("unsigned.jar");
+        Path jar = tmp.resolve("signed.jar");
+        Path keyStore = tmp.resolve("keystore.p12");
+
+        try (OutputStream out = Files.newOutputStream(unsigned); var j = new JarOutputStream(out)) {
+            byte[] content = "signed content".getBytes(StandardCharsets.UTF_8);
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            JarEntry e = new JarEntry("a/secret.txt");
+            e.setMethod(JarEntry.STORED);
+            e.setSize(content.length);
+            e.setCrc(crc.getValue());
+            j.putNextEntry(e);
+            j.write(content);
+            j.closeEntry();
+        }
+
+        run("keytool", "-genkeypair", "-keystore", keyStore.toString(), "-storepass", "changeit", "-alias", "test",
+                "-keyalg", "EC", "-dname", "CN=test", "-validity", "1");
+        run("jarsigner", "-keystore", keyStore.toString(), "-storepass", "changeit", "-signedjar", jar.toString(),
+                unsigned.toString(), "test");
+
+        // A jar file changed just now is copied, so wait until its hash can be taken in place.
+        awaitStable(jar);
+
+        URL[] classPath = {jar.toUri().toURL()};
+        VerifiedJars verified = new VerifiedJars(null);
+
+        try (var loader = new PluginClassLoader("signed", Leaf.class.getName(), classPath,
+                ClassLoader.getPlatformClassLoader(), null, verified)) {
+            assertThat(read(loader.getResourceAsStream("a/secret.txt"))).isEqualTo("signed content");
+        }
+
+        String hash = ContentHashes.sha256(jar);
+        assertThat(verified.contains(hash)).isTrue();
+
+        // Rewrite the contents in place, keeping the size and the last modified time.
+        FileTime lastModified = Files.getLastModifiedTime(jar);
+        String forged = new String(Files.readAllBytes(jar), StandardCharsets.ISO_8859_1)
+                .replace("signed content", "forged content");
+        Files.write(jar, forged.getBytes(StandardCharsets.ISO_8859_1));
+        Files.setLastModifiedTime(jar, lastModified);
+
+        // The cached hash can not tell the change, but the status change time tells it.
+        assertThat(ContentHashes.sha256(jar)).isEqualTo(hash);
+        awaitStable(jar);
+
+        try (var loader = new PluginClassLoader("signed", Leaf.class.getName(), classPath,
+                ClassLoader.getPlatformClassLoader(), null, verified)) {
+            assertThatThrownBy(() -> read(loader.getResourceAsStream("a/secret.txt")))
+                    .isInstanceOf(SecurityException.class);
+        }
+
+        // An entry added to a signed jar file is not signed, so it is rejected.
+        Path added = Files.createDirectory(tmp.resolve("added"));
+        Files.writeString(added.resolve("added.txt"), "added");
+        Path signed = tmp.resolve("added.jar");
+        run("jarsigner", "-keystore", keyStore.toString(), "-storepass", "changeit", "-signedjar", signed.toString(),
+                unsigned.toString(), "test");
+        run("jar", "--update", "--file", signed.toString(), "-C", added.toString(), "added.txt");
+
+        try (var loader = new PluginClassLoader("signed", Leaf.class.getName(), new URL[]{signed.toUri().toURL()},
+                ClassLoader.getPlatformClassLoader(), null, verified)) {
+            assertThatThrownBy(() -> read(loader.getResourceAsStream("a/secret.txt")))
+                    .isInstanceOf(SecurityException.class).hasMessageContaining("added.txt");
+        }
+    }
+
+    private static void awaitStable(Path file) throws IOException, InterruptedException {
+        while (ContentHashes.stableSha256(file).isEmpty()) {
+            Thread.sleep(100);
+        }
+    }
+
+    private static void run(String tool, String... args) throws IOException, InterruptedException {
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", tool).toString());
+        command.addAll(List.of(args));
+
+        Process p = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = read(p.getInputStream());
+
+        assertThat(p.waitFor()).as(output).isZero();
+    }
+
+    private void writeJar(Path jar) throws IOException {
+
+        Manifest mf = new Manifest();
+        mf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        mf.getMainAttributes().put(Attributes.Name.IMPLEMENTATION_VERSION, "1.2.3");
+
+        try (OutputStream out = Files.newOutputStream(jar); var j = new JarOutputStream(out, mf);
+                InputStream leaf = Leaf.class.getClassLoader().getResourceAsStream(LEAF)) {
+
+            j.putNextEntry(new JarEntry(LEAF));
+            j.write(leaf.readAllBytes());
+            j.closeEntry();
+
+            j.putNextEntry(new JarEntry("a/hello.txt"));
+            j.write("from jar".getBytes(StandardCharsets.UTF_8));
+            j.closeEntry();
+        }
+    }
+
+    private static void writeClass(Path jar, Class<?> c, String sealed) throws IOException {
+
+        Manifest mf = new Manifest();
+        mf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+
+        if (sealed != null) {
+            mf.getMainAttributes().put(Attributes.Name.SEALED, sealed);
+        }
+
+        String entry = c.getName().replace('.', '/') + ".class";
+
+        try (OutputStream out = Files.newOutputStream(jar); var j = new JarOutputStream(out, mf);
+                InputStream in = c.getClassLoader().getResourceAsStream(entry)) {
+            j.putNextEntry(new JarEntry(entry));
+            j.write(in.readAllBytes());
+            j.closeEntry();
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    static class Leaf {
+    }
+
+    static class Sibling {
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import jp.mydns.projectk.plugin.ExecutablePlugin;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test of the {@code PluginEvents}.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class PluginEventsTest {
+
+    private static final String PREFIX = "jp.mydns.projectk.plugin.";
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testLifecycleEvents() throws IOException {
+
+        Path plugins = Files.createDirectory(tmp.resolve("plugins"));
+        Path jar = TestPlugins.write(plugins.resolve("prototype.jar"), PluginLoaderImplTest.Prototype.class.getName());
+        Path dump = tmp.resolve("events.jfr");
+
+        try (Recording r = new Recording()) {
+
+            List.of("DirectoryScan", "ManifestRead", "ClassLoaderCreation", "Instantiation", "Unload")
+                    .forEach(n -> r.enable(PREFIX + n).withoutThreshold());
+            r.start();
+
+            try (var loader = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(plugins))) {
+                loader.load("PluginLoaderImplTest$Prototype");
+                loader.load("PluginLoaderImplTest$Prototype");
+            }
+
+            r.stop();
+            r.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+
+        assertThat(events).extracting(e -> e.getEventType().getName().substring(PREFIX.length()))
+                .containsExactly("DirectoryScan", "ManifestRead", "ClassLoaderCreation", "Instantiation",
+                        "Instantiation", "Unload");
+
+        assertThat(events).filteredOn(e -> e.hasField("pluginName")).allSatisfy(e -> {
+            assertThat(e.getString("pluginName")).isEqualTo("PluginLoaderImplTest$Prototype");
+            assertThat(e.getString("jarPath")).isEqualTo(jar.toString());
+        });
+        assertThat(events.get(events.size() - 1).getString("trigger")).isEqualTo("close");
+        assertThat(events.get(3).getLong("classLoadTime")).isGreaterThan(events.get(4).getLong("classLoadTime"));
+    }
+}
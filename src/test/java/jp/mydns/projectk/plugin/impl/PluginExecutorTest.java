@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import jp.mydns.projectk.plugin.ExecutablePlugin;
+import jp.mydns.projectk.plugin.NoSuchPluginException;
+import jp.mydns.projectk.plugin.PluginExecutionException;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test of the {@code PluginExecutor}.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class PluginExecutorTest {
+
+    private static final String SLOW = "PluginExecutorTest$Slow";
+    private static final String FAST = "PluginExecutorTest$Fast";
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testBulkhead() throws Exception {
+
+        TestPlugins.write(tmp.resolve("slow.jar"), Slow.class.getName());
+        TestPlugins.write(tmp.resolve("fast.jar"), Fast.class.getName());
+
+        try (var loader = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(tmp));
+                var executor = PluginExecutor.builder(loader).withConcurrency(1).withTimeout(Duration.ofSeconds(10))
+                        .build()) {
+
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<String> busy = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return executor.execute(SLOW, p -> {
+                        Slow.STARTED.countDown();
+                        return await(release);
+                    });
+                } catch (InterruptedException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+
+            assertThat(Slow.STARTED.await(10, TimeUnit.SECONDS)).isTrue();
+
+            // The slow plug-in is full, but the other plug-in is not affected.
+            assertThatThrownBy(() -> executor.execute(SLOW, p -> p.execute("x")))
+                    .isInstanceOf(PluginExecutionException.class).hasMessageContaining("overloaded");
+            String fast = executor.execute(FAST, p -> p.execute("x"));
+            assertThat(fast).startsWith("Argument: x");
+
+            release.countDown();
+            assertThat(busy.get(10, TimeUnit.SECONDS)).isEqualTo("released");
+
+            assertThatThrownBy(() -> executor.execute("None", p -> p.execute("x")))
+                    .isInstanceOf(NoSuchPluginException.class);
+
+            // An unknown name does not create a bulkhead.
+            assertThat(executor.size()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void testTimeout() throws IOException, InterruptedException {
+
+        TestPlugins.write(tmp.resolve("slow.jar"), Slow.class.getName());
+
+        try (var loader = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(tmp));
+                var executor = PluginExecutor.builder(loader).withConcurrency(1).withQueueCapacity(1)
+                        .withTimeout(Duration.ofMillis(200)).build()) {
+
+            CountDownLatch never = new CountDownLatch(1);
+            CompletableFuture<Boolean> interrupted = new CompletableFuture<>();
+
+            assertThatThrownBy(() -> executor.execute(SLOW, p -> {
+                try {
+                    never.await();
+                    return "completed";
+                } catch (InterruptedException ex) {
+                    interrupted.complete(true);
+                    return "interrupted";
+                }
+            })).isInstanceOf(PluginExecutionException.class).hasMessageContaining("timed out")
+                    .hasRootCauseInstanceOf(TimeoutException.class);
+
+            assertThat(interrupted).succeedsWithin(Duration.ofSeconds(10));
+
+            // The timed out call released the thread.
+            String slow = executor.execute(SLOW, p -> p.execute("y"));
+            assertThat(slow).startsWith("Argument: y");
+        }
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await();
+            return "released";
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+
+    public static class Slow extends ExecutablePlugin.Impl {
+
+        static final CountDownLatch STARTED = new CountDownLatch(1);
+    }
+
+    public static class Fast extends ExecutablePlugin.Impl {
+    }
+}
@@ -0,0 +1,541 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static java.nio.file.StandardCopyOption.COPY_ATTRIBUTES;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import jp.mydns.projectk.plugin.ExecutablePlugin;
+import jp.mydns.projectk.plugin.NoSuchPluginException;
+import jp.mydns.projectk.plugin.Plugin;
+import jp.mydns.projectk.plugin.PluginBatchLoadingException;
+import jp.mydns.projectk.plugin.PluginLoadingException;
+import jp.mydns.projectk.plugin.PluginScope;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test of the {@code PluginLoaderImpl}.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class PluginLoaderImplTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testScopes() throws Exception {
+
+        TestPlugins.write(tmp.resolve("prototype.jar"), Prototype.class.getName());
+        TestPlugins.write(tmp.resolve("singleton.jar"), Singleton.class.getName(),
+                Map.of(PluginScope.ATTRIBUTE_NAME, "singleton"));
+        TestPlugins.write(tmp.resolve("thread.jar"), PerThread.class.getName(),
+                Map.of(PluginScope.ATTRIBUTE_NAME, "Thread-Local"));
+        TestPlugins.write(tmp.resolve("pooled.jar"), Pooled.class.getName(),
+                Map.of(PluginScope.ATTRIBUTE_NAME, "pooled"));
+
+        var options = PluginLoaderOptions.builder().withPoolSize(2).build();
+
+        try (var loader = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(tmp), options)) {
+
+            assertThat(loader.load("PluginLoaderImplTest$Prototype"))
+                    .isNotSameAs(loader.load("PluginLoaderImplTest$Prototype"));
+
+            assertThat(loader.load("PluginLoaderImplTest$Singleton"))
+                    .isSameAs(loader.load("PluginLoaderImplTest$Singleton"));
+
+            ExecutablePlugin local = loader.load("PluginLoaderImplTest$PerThread");
+            assertThat(loader.load("PluginLoaderImplTest$PerThread")).isSameAs(local);
+            assertThat(CompletableFuture.supplyAsync(() -> loader.load("PluginLoaderImplTest$PerThread")).get())
+                    .isNotSameAs(local);
+
+            ExecutablePlugin pooled = loader.load("PluginLoaderImplTest$Pooled");
+            assertThat(loader.load("PluginLoaderImplTest$Pooled")).isNotSameAs(pooled);
+            loader.release(pooled);
+            assertThat(loader.load("PluginLoaderImplTest$Pooled")).isSameAs(pooled);
+
+            // Releasing twice does not let two borrowers share an instance.
+            loader.release(pooled);
+            loader.release(pooled);
+            assertThat(loader.load("PluginLoaderImplTest$Pooled")).isSameAs(pooled);
+            assertThat(loader.load("PluginLoaderImplTest$Pooled")).isNotSameAs(pooled);
+        }
+    }
+
+    @Test
+    void testThreadLocalReleasedByClosing() throws Exception {
+
+        TestPlugins.write(tmp.resolve("thread.jar"), PerThread.class.getName(),
+                Map.of(PluginScope.ATTRIBUTE_NAME, "Thread-Local"));
+
+        ExecutorService worker = Executors.newSingleThreadExecutor();
+
+        try {
+
+            WeakReference<ExecutablePlugin> instance;
+
+            try (var loader = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(tmp))) {
+                instance = new WeakReference<>(worker.submit(() -> loader.load("PluginLoaderImplTest$PerThread"))
+                        .get());
+            }
+
+            // The worker thread is still alive, but it no longer holds the instance.
+            for (int i = 0; i < 10 && instance.get() != null; i++) {
+                System.gc();
+                Thread.sleep(50);
+            }
+
+            assertThat(instance.get()).isNull();
+
+        } finally {
+            worker.shutdown();
+        }
+    }
+
+    @Test
+    void testScopeOverriddenByOptions() throws IOException {
+
+        TestPlugins.write(tmp.resolve("singleton.jar"), Singleton.class.getName(),
+                Map.of(PluginScope.ATTRIBUTE_NAME, "singleton"));
+
+        var options = PluginLoaderOptions.builder().withScope("pluginloaderimpltest$singleton", PluginScope.PROTOTYPE)
+                .build();
+
+        try (var loader = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(tmp), options)) {
+
+            assertThat(loader.load("PluginLoaderImplTest$Singleton"))
+                    .isNotSameAs(loader.load("PluginLoaderImplTest$Singleton"));
+        }
+    }
+
+    @Test
+    void testClassListRecordedAndReplayed() throws Exception {
+
+        Path plugins = Files.createDirectory(tmp.resolve("plugins"));
+        Path classData = tmp.resolve("class-data");
+        TestPlugins.write(plugins.resolve("hidden.jar"), Hidden.class, Hidden.Helper.class);
+
+        var options = PluginLoaderOptions.builder().withClassDataDirectory(classData).build();
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(TestPlugins.hiding(Hidden.class, Hidden.Helper.class));
+
+        try {
+
+            // Training run loads the helper class explicitly.
+            try (var loader = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(plugins), options)) {
+                ClassLoader cl = loader.load("PluginLoaderImplTest$Hidden").getClass().getClassLoader();
+                assertThat(cl).isInstanceOf(PluginClassLoader.class);
+                Class.forName(Hidden.Helper.class.getName(), false, cl);
+            }
+
+            try (var lists = Files.list(classData)) {
+                assertThat(lists).singleElement().satisfies(f -> assertThat(Files.readAllLines(f))
+                        .containsExactly(Hidden.class.getName(), Hidden.Helper.class.getName()));
+            }
+
+            // Next run loads the helper class in advance.
+            try (var loader = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(plugins), options)) {
+                var cl = (PluginClassLoader) loader.load("PluginLoaderImplTest$Hidden").getClass().getClassLoader();
+                assertThat(cl.getDefinedClassNames()).contains(Hidden.Helper.class.getName());
+            }
+
+        } finally {
+            Thread.currentThread().setContextClassLoader(context);
+        }
+    }
+
+    @Test
+    void testWarmUp() throws Exception {
+
+        Path plugins = Files.createDirectory(tmp.resolve("plugins"));
+        TestPlugins.write(plugins.resolve("hidden.jar"), Hidden.class, Hidden.Helper.class);
+        TestPlugins.write(plugins.resolve("warm.jar"), Warm.class.getName());
+
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(TestPlugins.hiding(Hidden.class, Hidden.Helper.class));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try (var loader = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(plugins))) {
+
+            Map<String, Duration> timings = loader.warmUp(List.of("pluginloaderimpltest$warm",
+                    "PluginLoaderImplTest$Hidden"), true, executor).get();
+
+            assertThat(timings).containsOnlyKeys("pluginloaderimpltest$warm", "PluginLoaderImplTest$Hidden");
+            assertThat(Warm.WARMED_UP).hasValue(1);
+
+            var cl = (PluginClassLoader) loader.load("PluginLoaderImplTest$Hidden").getClass().getClassLoader();
+            assertThat(cl.getDefinedClassNames()).contains(Hidden.Helper.class.getName());
+
+            assertThat(loader.warmUp(List.of("Unknown"), false, executor))
+                    .failsWithin(Duration.ofSeconds(10)).withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(NoSuchPluginException.class);
+
+        } finally {
+            executor.shutdown();
+            Thread.currentThread().setContextClassLoader(context);
+        }
+    }
+
+    @Test
+    void testLoadAll() throws Exception {
+
+        TestPlugins.write(tmp.resolve("prototype.jar"), Prototype.class.getName());
+        TestPlugins.write(tmp.resolve("singleton.jar"), Singleton.class.getName(),
+                Map.of(PluginScope.ATTRIBUTE_NAME, "singleton"));
+        TestPlugins.write(tmp.resolve("pooled.jar"), Pooled.class.getName(),
+                Map.of(PluginScope.ATTRIBUTE_NAME, "pooled"));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try (var loader = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(tmp))) {
+
+            Map<String, ExecutablePlugin> loaded = loader.loadAll(List.of("PluginLoaderImplTest$Singleton",
+                    "PluginLoaderImplTest$Prototype", "PluginLoaderImplTest$Singleton"), executor).get();
+
+            assertThat(loaded).containsOnlyKeys("PluginLoaderImplTest$Singleton", "PluginLoaderImplTest$Prototype");
+            assertThat(loaded.get("PluginLoaderImplTest$Singleton"))
+                    .isSameAs(loader.loadAsync("pluginloaderimpltest$singleton").get());
+
+            // All failures are reported, not only the first.
+            assertThat(loader.loadAll(List.of("Unknown1", "PluginLoaderImplTest$Prototype", "Unknown2"), executor))
+                    .failsWithin(Duration.ofSeconds(10)).withThrowableOfType(ExecutionException.class)
+                    .havingCause().isInstanceOf(PluginBatchLoadingException.class)
+                    .satisfies(ex -> assertThat(((PluginBatchLoadingException) ex).getFailures())
+                    .containsOnlyKeys("Unknown1", "Unknown2")
+                    .allSatisfy((k, v) -> assertThat(v).isInstanceOf(NoSuchPluginException.class)));
+
+            // The plug-ins loaded by a failed batch are released.
+            ExecutablePlugin pooled = loader.load("PluginLoaderImplTest$Pooled");
+            loader.release(pooled);
+            assertThat(loader.loadAll(List.of("PluginLoaderImplTest$Pooled", "Unknown"), executor))
+                    .failsWithin(Duration.ofSeconds(10));
+            assertThat(loader.load("PluginLoaderImplTest$Pooled")).isSameAs(pooled);
+
+            // The plug-ins loaded before the executor rejects a load are released.
+            loader.release(pooled);
+            AtomicInteger accepted = new AtomicInteger();
+            Executor rejecting = r -> {
+                if (accepted.getAndIncrement() > 0) {
+                    throw new RejectedExecutionException();
+                }
+                r.run();
+            };
+            assertThatThrownBy(() -> loader.loadAll(List.of("PluginLoaderImplTest$Pooled",
+                    "PluginLoaderImplTest$Prototype"), rejecting)).isInstanceOf(RejectedExecutionException.class);
+            assertThat(loader.load("PluginLoaderImplTest$Pooled")).isSameAs(pooled);
+
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testIncompatiblePluginsAreExcluded() throws Exception {
+
+        Path plugins = Files.createDirectory(tmp.resolve("plugins"));
+        TestPlugins.write(plugins.resolve("indirect.jar"), Indirect.class, Base.class);
+        TestPlugins.write(plugins.resolve("foreign.jar"), Foreign.class);
+
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(TestPlugins.hiding(Indirect.class, Base.class, Foreign.class));
+
+        try (var loader = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(plugins));
+                var any = new PluginLoaderImpl<>(Plugin.class, new PluginStorageImpl(plugins))) {
+
+            assertThat(loader.stream().map(Map.Entry::getKey)).containsExactly("PluginLoaderImplTest$Indirect");
+            assertThat(loader.load("PluginLoaderImplTest$Indirect").execute("x")).startsWith("Argument: x");
+            assertThatThrownBy(() -> loader.load("PluginLoaderImplTest$Foreign"))
+                    .isInstanceOf(NoSuchPluginException.class);
+
+            assertThat(any.stream().map(Map.Entry::getKey))
+                    .containsExactlyInAnyOrder("PluginLoaderImplTest$Indirect", "PluginLoaderImplTest$Foreign");
+
+        } finally {
+            Thread.currentThread().setContextClassLoader(context);
+        }
+    }
+
+    @Test
+    void testFindAndLightweightMiss() throws IOException {
+
+        TestPlugins.write(tmp.resolve("prototype.jar"), Prototype.class.getName());
+        for (int i = 0; i < 20; i++) {
+            TestPlugins.write(tmp.resolve("p%02d.jar".formatted(i)), "a.P%02d".formatted(i));
+        }
+
+        var options = PluginLoaderOptions.builder().withLightweightExceptions(true).build();
+
+        try (var loader = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(tmp), options)) {
+
+            assertThat(loader.find("pluginloaderimpltest$prototype")).isPresent();
+            assertThat(loader.find("Unknown")).isEmpty();
+
+            assertThatThrownBy(() -> loader.load("Unknown")).isInstanceOf(NoSuchPluginException.class)
+                    .hasMessageEndingWith(", ... (21 in total)].")
+                    .satisfies(ex -> assertThat(ex.getStackTrace()).isEmpty());
+        }
+    }
+
+    @Test
+    void testCloseDrainsLeases() throws Exception {
+
+        Path plugins = Files.createDirectory(tmp.resolve("plugins"));
+        TestPlugins.write(plugins.resolve("hidden.jar"), Hidden.class, Hidden.Helper.class);
+        String helper = Hidden.Helper.class.getName();
+        String resource = Hidden.class.getName().replace('.', '/') + ".class";
+
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(TestPlugins.hiding(Hidden.class, Hidden.Helper.class));
+
+        try {
+
+            var loader = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(plugins));
+            var lease = loader.lease("PluginLoaderImplTest$Hidden");
+            var cl = (PluginClassLoader) lease.get().getClass().getClassLoader();
+
+            loader.close();
+
+            assertThatThrownBy(() -> loader.load("PluginLoaderImplTest$Hidden"))
+                    .isInstanceOf(PluginLoadingException.class).hasMessageContaining("closed");
+            assertThatThrownBy(() -> loader.lease("PluginLoaderImplTest$Hidden"))
+                    .isInstanceOf(PluginLoadingException.class);
+
+            // The leased plug-in still can load its classes.
+            assertThat(Class.forName(helper, false, cl).getClassLoader()).isSameAs(cl);
+            assertThat(cl.findResource(resource)).isNotNull();
+
+            lease.close();
+            lease.close();
+
+            assertThat(cl.findResource(resource)).isNull();
+
+            // The class loaders are closed at the timeout, even if a lease is left open.
+            var options = PluginLoaderOptions.builder().withDrainTimeout(Duration.ofMillis(100)).build();
+            var timed = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(plugins), options);
+            var leaked = (PluginClassLoader) timed.lease("PluginLoaderImplTest$Hidden").get().getClass()
+                    .getClassLoader();
+
+            timed.close();
+            assertThat(leaked.findResource(resource)).isNotNull();
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (leaked.findResource(resource) != null && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertThat(leaked.findResource(resource)).isNull();
+
+        } finally {
+            Thread.currentThread().setContextClassLoader(context);
+        }
+    }
+
+    @Test
+    void testSharedClassLoaders() throws Exception {
+
+        Path plugins = Files.createDirectory(tmp.resolve("plugins"));
+        TestPlugins.write(plugins.resolve("indirect.jar"), Indirect.class, Base.class);
+
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(TestPlugins.hiding(Indirect.class, Base.class));
+
+        var shared = PluginLoaderOptions.builder().withSharedClassLoaders(true).build();
+        int before = SharedClassLoaders.size();
+
+        try (var first = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(plugins), shared);
+                var second = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(plugins), shared);
+                var own = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(plugins))) {
+
+            Class<?> c = first.load("PluginLoaderImplTest$Indirect").getClass();
+            assertThat(second.load("PluginLoaderImplTest$Indirect").getClass()).isSameAs(c);
+            assertThat(own.load("PluginLoaderImplTest$Indirect").getClass()).isNotSameAs(c);
+            assertThat(SharedClassLoaders.size()).isEqualTo(before + 1);
+
+            // The class loader is kept while the other plug-in loader holds it.
+            first.close();
+            assertThat(SharedClassLoaders.size()).isEqualTo(before + 1);
+            assertThat(second.load("PluginLoaderImplTest$Indirect").execute("x")).startsWith("Argument: x");
+
+            second.close();
+            assertThat(SharedClassLoaders.size()).isEqualTo(before);
+
+        } finally {
+            Thread.currentThread().setContextClassLoader(context);
+        }
+    }
+
+    @Test
+    void testSharedClassLoadersWithIndex() throws Exception {
+
+        Path plugins = Files.createDirectory(tmp.resolve("plugins"));
+        TestPlugins.write(plugins.resolve("indirect.jar"), Indirect.class, Base.class);
+
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(TestPlugins.hiding(Indirect.class, Base.class));
+
+        int before = SharedClassLoaders.size();
+
+        var indexed = PluginLoaderOptions.builder().withSharedClassLoaders(true)
+                .withPackageIndexFile(tmp.resolve("first.idx")).build();
+
+        try (var first = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(plugins), indexed);
+                var same = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(plugins), indexed);
+                var second = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(plugins),
+                        PluginLoaderOptions.builder().withSharedClassLoaders(true)
+                                .withPackageIndexFile(tmp.resolve("second.idx")).build())) {
+
+            // Plug-in loaders share the class loader only if they use the same package index file.
+            Class<?> c = first.load("PluginLoaderImplTest$Indirect").getClass();
+            assertThat(same.load("PluginLoaderImplTest$Indirect").getClass()).isSameAs(c);
+            assertThat(second.load("PluginLoaderImplTest$Indirect").getClass()).isNotSameAs(c);
+            assertThat(SharedClassLoaders.size()).isEqualTo(before + 2);
+
+        } finally {
+            Thread.currentThread().setContextClassLoader(context);
+        }
+    }
+
+    @Test
+    void testSharedClassLoadersByLocation() throws Exception {
+
+        Path plugins = Files.createDirectory(tmp.resolve("plugins"));
+        Path copies = Files.createDirectory(tmp.resolve("copies"));
+        TestPlugins.write(plugins.resolve("indirect.jar"), Indirect.class, Base.class);
+        Files.copy(plugins.resolve("indirect.jar"), copies.resolve("indirect.jar"), COPY_ATTRIBUTES);
+
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(TestPlugins.hiding(Indirect.class, Base.class));
+
+        var shared = PluginLoaderOptions.builder().withSharedClassLoaders(true).build();
+        int before = SharedClassLoaders.size();
+
+        try (var first = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(plugins), shared);
+                var copy = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(copies), shared)) {
+
+            // The same contents at another location get their own class loader, which reads that location.
+            Class<?> c = first.load("PluginLoaderImplTest$Indirect").getClass();
+            assertThat(copy.load("PluginLoaderImplTest$Indirect").getClass()).isNotSameAs(c);
+            assertThat(SharedClassLoaders.size()).isEqualTo(before + 2);
+
+        } finally {
+            Thread.currentThread().setContextClassLoader(context);
+        }
+    }
+
+    @Test
+    void testConstructorFailures() throws IOException {
+
+        TestPlugins.write(tmp.resolve("failing.jar"), Failing.class.getName());
+        TestPlugins.write(tmp.resolve("overflowing.jar"), Overflowing.class.getName());
+
+        try (var loader = new PluginLoaderImpl<>(ExecutablePlugin.class, new PluginStorageImpl(tmp))) {
+
+            assertThatThrownBy(() -> loader.load("PluginLoaderImplTest$Failing"))
+                    .isInstanceOf(PluginLoadingException.class);
+
+            // An error of the Java VM is not reported as an invalid plug-in.
+            assertThatThrownBy(() -> loader.load("PluginLoaderImplTest$Overflowing"))
+                    .isInstanceOf(StackOverflowError.class);
+        }
+    }
+
+    public static class Prototype extends ExecutablePlugin.Impl {
+    }
+
+    public static class Failing extends ExecutablePlugin.Impl {
+
+        public Failing() {
+            throw new IllegalStateException("Failing");
+        }
+    }
+
+    public static class Overflowing extends ExecutablePlugin.Impl {
+
+        public Overflowing() {
+            throw new StackOverflowError();
+        }
+    }
+
+    public static class Singleton extends ExecutablePlugin.Impl {
+    }
+
+    public static class PerThread extends ExecutablePlugin.Impl {
+    }
+
+    public static class Pooled extends ExecutablePlugin.Impl {
+    }
+
+    public static class Warm extends ExecutablePlugin.Impl {
+
+        static final AtomicInteger WARMED_UP = new AtomicInteger();
+
+        @Override
+        public void warmUp() {
+            WARMED_UP.incrementAndGet();
+        }
+    }
+
+    public static class Base extends ExecutablePlugin.Impl {
+    }
+
+    public static class Indirect extends Base {
+    }
+
+    public static class Foreign implements Plugin {
+
+        @Override
+        public String getAbout() {
+            return "Not executable";
+        }
+
+        @Override
+        public String getVersion() {
+            return "1.0.0";
+        }
+    }
+
+    public static class Hidden extends ExecutablePlugin.Impl {
+
+        static class Helper {
+        }
+    }
+}
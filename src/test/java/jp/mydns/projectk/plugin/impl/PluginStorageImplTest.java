@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.IntStream;
+import jp.mydns.projectk.plugin.PluginStorage.PluginLoadingSource;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test of the {@code PluginStorageImpl}.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class PluginStorageImplTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testParallelDiscoveryKeepsOrder() throws IOException {
+
+        Path first = Files.createDirectory(tmp.resolve("first"));
+        Path second = Files.createDirectory(tmp.resolve("second"));
+
+        for (int i = 0; i < 50; i++) {
+            TestPlugins.write(first.resolve("p%02d.jar".formatted(i)), "first.P%02d".formatted(i));
+            TestPlugins.write(second.resolve("p%02d.jar".formatted(i)), "second.P%02d".formatted(i));
+        }
+        Files.writeString(second.resolve("broken.jar"), "not a jar");
+
+        List<String> serial = classNames(new PluginStorageImpl(first, second));
+        List<String> parallel = classNames(new PluginStorageImpl(4, first, second));
+
+        assertThat(serial).hasSize(100);
+        assertThat(parallel).isEqualTo(serial);
+        assertThat(parallel.subList(50, 100)).containsExactlyInAnyOrderElementsOf(
+                IntStream.range(0, 50).mapToObj("second.P%02d"::formatted).toList());
+    }
+
+    @Test
+    void testIndexSkipsUnchangedJars() throws IOException {
+
+        Path dir = Files.createDirectory(tmp.resolve("plugins"));
+        Path index = tmp.resolve("index").resolve("manifest.idx");
+        Path unchanged = dir.resolve("unchanged.jar");
+        Path changed = dir.resolve("changed.jar");
+
+        TestPlugins.write(unchanged, "a.Unchanged");
+        TestPlugins.write(changed, "a.Before");
+
+        assertThat(classNames(new PluginStorageImpl(index, 1, dir)))
+                .containsExactlyInAnyOrder("a.Unchanged", "a.Before");
+        assertThat(index).exists();
+
+        // Break the unchanged jar without changing its size and last modified time. It must not be re-opened.
+        FileTime unchangedTime = Files.getLastModifiedTime(unchanged);
+        Files.write(unchanged, new byte[(int) Files.size(unchanged)]);
+        Files.setLastModifiedTime(unchanged, unchangedTime);
+
+        TestPlugins.write(changed, "a.After");
+        Files.setLastModifiedTime(changed, FileTime.fromMillis(Files.getLastModifiedTime(changed).toMillis() + 2000));
+
+        assertThat(classNames(new PluginStorageImpl(index, 1, dir)))
+                .containsExactlyInAnyOrder("a.Unchanged", "a.After");
+    }
+
+    @Test
+    void testIndexSkipsFailedJars() throws IOException {
+
+        Path dir = Files.createDirectory(tmp.resolve("plugins"));
+        Path index = tmp.resolve("index").resolve("manifest.idx");
+        Path jar = dir.resolve("late.jar");
+
+        TestPlugins.write(jar, "a.Late");
+        byte[] contents = Files.readAllBytes(jar);
+        FileTime time = Files.getLastModifiedTime(jar);
+
+        // A jar file that can not be read yet, such as one being written, is not indexed.
+        Files.write(jar, new byte[contents.length]);
+        Files.setLastModifiedTime(jar, time);
+
+        assertThat(classNames(new PluginStorageImpl(index, 1, dir))).isEmpty();
+
+        Files.write(jar, contents);
+        Files.setLastModifiedTime(jar, time);
+
+        assertThat(classNames(new PluginStorageImpl(index, 1, dir))).containsExactly("a.Late");
+    }
+
+    @Test
+    void testLibraryJarsAreInClassPath() throws IOException {
+
+        Path dir = Files.createDirectory(tmp.resolve("plugins"));
+        Path lib = Files.createDirectory(dir.resolve("main"));
+        TestPlugins.write(dir.resolve("main.jar"), "a.Main");
+        Files.createFile(lib.resolve("b.jar"));
+        Files.createFile(lib.resolve("a.jar"));
+        Files.createFile(lib.resolve("notes.txt"));
+
+        assertThat(new PluginStorageImpl(dir).stream().findFirst().orElseThrow().getClassPath())
+                .containsExactly(dir.resolve("main.jar").toUri().toURL(), lib.toUri().toURL(),
+                        lib.resolve("a.jar").toUri().toURL(), lib.resolve("b.jar").toUri().toURL());
+    }
+
+    private List<String> classNames(PluginStorageImpl storage) {
+        return storage.stream().map(PluginLoadingSource::getClassName).toList();
+    }
+}
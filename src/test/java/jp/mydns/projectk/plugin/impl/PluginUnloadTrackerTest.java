@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test of the {@code PluginUnloadTracker}.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class PluginUnloadTrackerTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testLeakSuspectAndUnload() throws Exception {
+
+        PluginUnloadTracker tracker = PluginUnloadTracker.getInstance();
+        long unloaded = tracker.getUnloadedCount();
+
+        // The defined class pins its class loader.
+        AtomicReference<Class<?>> pinned = new AtomicReference<>(defineLeafAndClose());
+
+        gc(() -> false);
+
+        assertThat(tracker.findLeakSuspects(1)).filteredOn(s -> s.pluginName().equals("leaf")).singleElement()
+                .satisfies(s -> assertThat(s.definedClasses()).isEqualTo(1))
+                .satisfies(s -> assertThat(s.jar()).isEqualTo(tmp.toUri().toURL()));
+
+        pinned.set(null);
+
+        gc(() -> tracker.getLoaders().stream().noneMatch(s -> s.pluginName().equals("leaf")));
+
+        assertThat(tracker.getUnloadedCount()).isGreaterThan(unloaded);
+        assertThat(tracker.getLoaders()).noneMatch(s -> s.pluginName().equals("leaf"));
+    }
+
+    private Class<?> defineLeafAndClose() throws IOException, ClassNotFoundException {
+
+        String resource = Leaf.class.getName().replace('.', '/') + ".class";
+        Path file = tmp.resolve(resource);
+        Files.createDirectories(file.getParent());
+
+        try (InputStream in = Leaf.class.getClassLoader().getResourceAsStream(resource)) {
+            Files.write(file, in.readAllBytes());
+        }
+
+        try (var loader = new PluginClassLoader("leaf", Leaf.class.getName(), new URL[]{tmp.toUri().toURL()},
+                ClassLoader.getPlatformClassLoader())) {
+            return loader.loadClass(Leaf.class.getName());
+        }
+    }
+
+    private static void gc(BooleanSupplier done) throws InterruptedException {
+        for (int i = 0; i < 10 && !done.getAsBoolean(); i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+    }
+
+    static class Leaf {
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Map.Entry;
+import jp.mydns.projectk.plugin.ExecutablePlugin;
+import jp.mydns.projectk.plugin.NoSuchPluginException;
+import jp.mydns.projectk.plugin.PluginScope;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test of the {@code ReloadingPluginLoader}.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class ReloadingPluginLoaderTest {
+
+    private static final Map<String, String> SINGLETON = Map.of(PluginScope.ATTRIBUTE_NAME, "singleton");
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testReload() throws IOException {
+
+        Path kept = TestPlugins.write(tmp.resolve("kept.jar"), Kept.class.getName(), SINGLETON);
+        Path replaced = TestPlugins.write(tmp.resolve("replaced.jar"), Replaced.class.getName(), SINGLETON);
+
+        try (var loader = new ReloadingPluginLoader<>(ExecutablePlugin.class, tmp)) {
+
+            ExecutablePlugin keptBefore = loader.load("ReloadingPluginLoaderTest$Kept");
+            ExecutablePlugin replacedBefore = loader.load("ReloadingPluginLoaderTest$Replaced");
+
+            TestPlugins.write(tmp.resolve("added.jar"), Added.class.getName());
+            TestPlugins.write(replaced, Replaced.class.getName(), SINGLETON);
+            Files.setLastModifiedTime(replaced, FileTime.fromMillis(Files.getLastModifiedTime(kept).toMillis() + 2000));
+            loader.reload();
+
+            assertThat(loader.stream().map(Entry::getKey)).containsExactly("ReloadingPluginLoaderTest$Added",
+                    "ReloadingPluginLoaderTest$Kept", "ReloadingPluginLoaderTest$Replaced");
+            assertThat(loader.load("ReloadingPluginLoaderTest$Kept")).isSameAs(keptBefore);
+            assertThat(loader.load("ReloadingPluginLoaderTest$Replaced")).isNotSameAs(replacedBefore);
+
+            Files.delete(kept);
+            loader.reload();
+
+            assertThatThrownBy(() -> loader.load("ReloadingPluginLoaderTest$Kept"))
+                    .isInstanceOf(NoSuchPluginException.class);
+        }
+    }
+
+    @Test
+    void testIncompatiblePluginsExcluded() throws IOException {
+
+        Path plugins = Files.createDirectory(tmp.resolve("plugins"));
+        TestPlugins.write(plugins.resolve("kept.jar"), Kept.class.getName());
+        TestPlugins.write(plugins.resolve("foreign.jar"), PluginLoaderImplTest.Foreign.class);
+
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(TestPlugins.hiding(PluginLoaderImplTest.Foreign.class));
+
+        try (var loader = new ReloadingPluginLoader<>(ExecutablePlugin.class, plugins)) {
+
+            assertThat(loader.stream().map(Entry::getKey)).containsExactly("ReloadingPluginLoaderTest$Kept");
+            assertThatThrownBy(() -> loader.load("PluginLoaderImplTest$Foreign"))
+                    .isInstanceOf(NoSuchPluginException.class);
+
+        } finally {
+            Thread.currentThread().setContextClassLoader(context);
+        }
+    }
+
+    @Test
+    void testUnchangedManifestsNotReadAgain() throws IOException {
+
+        Path kept = TestPlugins.write(tmp.resolve("kept.jar"), Kept.class.getName(), SINGLETON);
+
+        try (var loader = new ReloadingPluginLoader<>(ExecutablePlugin.class, tmp)) {
+
+            ExecutablePlugin before = loader.load("ReloadingPluginLoaderTest$Kept");
+
+            // Break the jar without changing its size and last modified time. Its manifest must not be read again.
+            FileTime time = Files.getLastModifiedTime(kept);
+            Files.write(kept, new byte[(int) Files.size(kept)]);
+            Files.setLastModifiedTime(kept, time);
+
+            TestPlugins.write(tmp.resolve("added.jar"), Added.class.getName());
+            loader.reload();
+
+            assertThat(loader.stream().map(Entry::getKey)).containsExactly("ReloadingPluginLoaderTest$Added",
+                    "ReloadingPluginLoaderTest$Kept");
+            assertThat(loader.load("ReloadingPluginLoaderTest$Kept")).isSameAs(before);
+        }
+    }
+
+    @Test
+    void testLoadedPluginKeepsWorkingAfterReplaced() throws Exception {
+
+        Path plugins = Files.createDirectory(tmp.resolve("plugins"));
+        Path jar = TestPlugins.write(plugins.resolve("hidden.jar"), Hidden.class, Hidden.Helper.class);
+        String resource = Hidden.class.getName().replace('.', '/') + ".class";
+
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(TestPlugins.hiding(Hidden.class, Hidden.Helper.class));
+
+        try (var loader = new ReloadingPluginLoader<>(ExecutablePlugin.class, plugins)) {
+
+            var cl = (PluginClassLoader) loader.load("ReloadingPluginLoaderTest$Hidden").getClass().getClassLoader();
+
+            TestPlugins.write(jar, Hidden.class, Hidden.Helper.class);
+            Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 2000));
+            loader.reload();
+
+            // The loaded plug-in still can load its classes until the drain timeout.
+            assertThat(Class.forName(Hidden.Helper.class.getName(), false, cl).getClassLoader()).isSameAs(cl);
+            assertThat(cl.findResource(resource)).isNotNull();
+
+        } finally {
+            Thread.currentThread().setContextClassLoader(context);
+        }
+    }
+
+    @Test
+    void testDirectoryCreatedLater() throws Exception {
+
+        Path late = tmp.resolve("late");
+
+        try (var loader = new ReloadingPluginLoader<>(ExecutablePlugin.class, PluginLoaderOptions.defaults(),
+                Duration.ofMillis(50), late)) {
+
+            assertThat(loader.find("ReloadingPluginLoaderTest$Added")).isEmpty();
+
+            Files.createDirectory(late);
+            TestPlugins.write(late.resolve("added.jar"), Added.class.getName());
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (loader.find("ReloadingPluginLoaderTest$Added").isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertThat(loader.find("ReloadingPluginLoaderTest$Added")).isPresent();
+        }
+    }
+
+    public static class Kept extends ExecutablePlugin.Impl {
+    }
+
+    public static class Replaced extends ExecutablePlugin.Impl {
+    }
+
+    public static class Added extends ExecutablePlugin.Impl {
+    }
+
+    public static class Hidden extends ExecutablePlugin.Impl {
+
+        static class Helper {
+        }
+    }
+}
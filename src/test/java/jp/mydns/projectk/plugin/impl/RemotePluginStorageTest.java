@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import jp.mydns.projectk.plugin.ExecutablePlugin;
+import jp.mydns.projectk.plugin.PluginLoadingException;
+import jp.mydns.projectk.plugin.PluginStorage.PluginLoadingSource;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test of the {@code RemotePluginStorage}. A local HTTP server stands in for the artifact endpoint.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class RemotePluginStorageTest {
+
+    @TempDir
+    Path tmp;
+
+    private final Map<String, byte[]> artifacts = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+    private HttpServer server;
+    private URI endpoint;
+
+    @BeforeEach
+    void startServer() throws IOException {
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(handlers);
+        server.createContext("/artifacts/", exchange -> {
+
+            requests.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            byte[] body = artifacts.get(path.substring(path.lastIndexOf('/') + 1));
+
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+
+        endpoint = URI.create("http://%s:%d/artifacts".formatted(server.getAddress().getHostString(),
+                server.getAddress().getPort()));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    @Test
+    void testFetchAndCache() throws IOException {
+
+        String first = publish("first.jar", First.class.getName());
+        String second = publish("second.jar", Second.class.getName());
+        Path cache = tmp.resolve("cache");
+
+        var storage = RemotePluginStorage.builder(endpoint, cache).withPlugin(first).withPlugin(second).build();
+
+        assertThat(storage.stream().map(PluginLoadingSource::getClassName))
+                .containsExactly(First.class.getName(), Second.class.getName());
+        assertThat(cache.resolve(first + ".jar")).exists();
+        assertThat(requests).hasValue(2);
+
+        try (var loader = new PluginLoaderImpl<>(ExecutablePlugin.class, storage)) {
+            assertThat(loader.load("RemotePluginStorageTest$Second").execute("x")).startsWith("Argument: x");
+        }
+
+        // Cached jar files are not fetched again.
+        RemotePluginStorage.builder(endpoint, cache).withPlugin(first).withPlugin(second).build();
+        assertThat(requests).hasValue(2);
+    }
+
+    @Test
+    void testDigestMismatchAndMissing() throws IOException {
+
+        String hash = publish("first.jar", First.class.getName());
+        String other = ContentHashes.sha256(TestPlugins.write(tmp.resolve("other.jar"), Second.class.getName()));
+        artifacts.put(other, artifacts.get(hash));
+        String missing = "0".repeat(64);
+
+        assertThatThrownBy(() -> RemotePluginStorage.builder(endpoint, tmp.resolve("cache")).withPlugin(hash)
+                .withPlugin(other).withPlugin(missing).build())
+                .isInstanceOf(PluginLoadingException.class).hasMessageContaining(other).hasMessageContaining(missing)
+                .hasMessageNotContaining(hash);
+
+        assertThat(tmp.resolve("cache").resolve(other + ".jar")).doesNotExist();
+        assertThat(tmp.resolve("cache").resolve(hash + ".jar")).exists();
+    }
+
+    @Test
+    void testLeastRecentlyUsedEviction() throws IOException {
+
+        String first = publish("first.jar", First.class.getName());
+        String second = publish("second.jar", Second.class.getName());
+        Path cache = tmp.resolve("cache");
+
+        RemotePluginStorage.builder(endpoint, cache).withPlugin(first).build();
+
+        // A jar file left by another process that has exited is not in use.
+        Path unused = TestPlugins.write(tmp.resolve("unused.jar"), Second.class.getName() + "Unused");
+        Files.copy(unused, cache.resolve(ContentHashes.sha256(unused) + ".jar"));
+
+        // Only the jar files in use are kept when the bound is exceeded, including those of the other storages.
+        RemotePluginStorage.builder(endpoint, cache).withPlugin(second).withMaxCacheSize(1).build();
+
+        assertThat(cache.resolve(ContentHashes.sha256(unused) + ".jar")).doesNotExist();
+        assertThat(cache.resolve(first + ".jar")).exists();
+        assertThat(cache.resolve(second + ".jar")).exists();
+        assertThat(cache.resolve(".lock")).exists();
+    }
+
+    @Test
+    void testBodyTimeout() throws IOException, InterruptedException {
+
+        String hash = publish("first.jar", First.class.getName());
+        CountDownLatch stalled = new CountDownLatch(1);
+
+        // The headers arrive in time, but the body stalls.
+        server.createContext("/slow/", exchange -> {
+            byte[] body = artifacts.get(hash);
+            exchange.sendResponseHeaders(200, body.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(body, 0, 10);
+            out.flush();
+            try {
+                stalled.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+
+        URI slow = URI.create(endpoint.toString().replace("/artifacts", "/slow"));
+        long start = System.nanoTime();
+
+        try {
+            assertThatThrownBy(() -> RemotePluginStorage.builder(slow, tmp.resolve("cache")).withPlugin(hash)
+                    .withTimeout(Duration.ofMillis(500)).build()).isInstanceOf(PluginLoadingException.class);
+        } finally {
+            stalled.countDown();
+        }
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+        assertThat(tmp.resolve("cache").resolve(hash + ".jar")).doesNotExist();
+    }
+
+    private String publish(String fileName, String mainClass) throws IOException {
+
+        Path jar = TestPlugins.write(Files.createDirectories(tmp.resolve("published")).resolve(fileName), mainClass);
+        String hash = ContentHashes.sha256(jar);
+        artifacts.put(hash, Files.readAllBytes(jar));
+
+        return hash;
+    }
+
+    public static class First extends ExecutablePlugin.Impl {
+    }
+
+    public static class Second extends ExecutablePlugin.Impl {
+    }
+}
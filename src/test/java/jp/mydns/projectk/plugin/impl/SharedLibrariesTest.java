@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test of the {@code SharedLibraries}.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+class SharedLibrariesTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testSameLibrariesAreShared() throws IOException {
+
+        Path a = TestPlugins.write(tmp.resolve("a.jar"), "lib.A");
+        Path b = TestPlugins.write(tmp.resolve("b.jar"), "lib.B");
+        Path c = TestPlugins.write(tmp.resolve("c.jar"), "lib.C");
+        ClassLoader parent = getClass().getClassLoader();
+        int before = SharedLibraries.size();
+
+        try (var first = SharedLibraries.acquire(List.of(a, b), parent);
+                var second = SharedLibraries.acquire(List.of(a, b), parent);
+                var third = SharedLibraries.acquire(List.of(a, c), parent)) {
+
+            assertThat(second.get()).isSameAs(first.get());
+            assertThat(third.get()).isNotSameAs(first.get());
+            assertThat(first.get().getParent()).isSameAs(parent);
+            assertThat(SharedLibraries.size()).isEqualTo(before + 2);
+
+            first.close();
+            assertThat(SharedLibraries.size()).isEqualTo(before + 2);
+        }
+
+        assertThat(SharedLibraries.size()).isEqualTo(before);
+    }
+
+    @Test
+    void testLibrarySeesLibrariesAfterIt() throws Exception {
+
+        // The library sorted first depends on the one sorted after it.
+        Path a = TestPlugins.write(tmp.resolve("a.jar"), Dependent.class);
+        Path b = TestPlugins.write(tmp.resolve("b.jar"), Dependency.class);
+
+        try (var lease = SharedLibraries.acquire(List.of(a, b), TestPlugins.hiding(Dependent.class,
+                Dependency.class))) {
+
+            Class<?> c = Class.forName(Dependent.class.getName(), true, lease.get());
+
+            assertThat(c.getClassLoader()).isSameAs(lease.get());
+            assertThat(c.getMethod("call").invoke(null)).isEqualTo("dependency");
+        }
+    }
+
+    public static class Dependent {
+
+        public static String call() {
+            return new Dependency().toString();
+        }
+    }
+
+    public static class Dependency {
+
+        @Override
+        public String toString() {
+            return "dependency";
+        }
+    }
+}
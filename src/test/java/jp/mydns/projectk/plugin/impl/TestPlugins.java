@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2023, Project-K
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package jp.mydns.projectk.plugin.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Plug-in jar files for testing.
+ *
+ * @author riru
+ * @version 1.1.0
+ * @since 1.1.0
+ */
+final class TestPlugins {
+
+    private TestPlugins() {
+    }
+
+    /**
+     * Write a plug-in jar file that contains only the manifest. The main class must be found by the parent class
+     * loader.
+     *
+     * @param jar jar file
+     * @param mainClass main class name
+     * @param attributes additional main attributes of the manifest
+     * @return {@code jar}
+     * @throws IOException if occurs I/O error
+     */
+    static Path write(Path jar, String mainClass, Map<String, String> attributes) throws IOException {
+
+        Manifest mf = new Manifest();
+        mf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        mf.getMainAttributes().put(Attributes.Name.MAIN_CLASS, mainClass);
+        attributes.forEach((k, v) -> mf.getMainAttributes().putValue(k, v));
+
+        try (OutputStream out = Files.newOutputStream(jar); var j = new JarOutputStream(out, mf)) {
+            // Only the manifest is written.
+        }
+
+        return jar;
+    }
+
+    /**
+     * Write a plug-in jar file that contains the classes. Use a class loader given by {@link #hiding(Class...)} as the
+     * parent, so that the classes are defined by the plug-in class loader.
+     *
+     * @param jar jar file
+     * @param mainClass main class
+     * @param classes other classes
+     * @return {@code jar}
+     * @throws IOException if occurs I/O error
+     */
+    static Path write(Path jar, Class<?> mainClass, Class<?>... classes) throws IOException {
+
+        Manifest mf = new Manifest();
+        mf.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        mf.getMainAttributes().put(Attributes.Name.MAIN_CLASS, mainClass.getName());
+
+        try (OutputStream out = Files.newOutputStream(jar); var j = new JarOutputStream(out, mf)) {
+            for (Class<?> c : Stream.concat(Stream.of(mainClass), Stream.of(classes)).toList()) {
+                String entry = c.getName().replace('.', '/') + ".class";
+                try (InputStream in = c.getClassLoader().getResourceAsStream(entry)) {
+                    j.putNextEntry(new JarEntry(entry));
+                    j.write(in.readAllBytes());
+                    j.closeEntry();
+                }
+            }
+        }
+
+        return jar;
+    }
+
+    /**
+     * Returns a class loader that delegates to the class loader of the tests, except the hidden classes.
+     *
+     * @param hidden hidden classes
+     * @return class loader
+     */
+    static ClassLoader hiding(Class<?>... hidden) {
+
+        Set<String> names = Stream.of(hidden).map(Class::getName).collect(Collectors.toSet());
+
+        return new ClassLoader("hiding", TestPlugins.class.getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                if (names.contains(name)) {
+                    throw new ClassNotFoundException(name);
+                }
+                return super.loadClass(name, resolve);
+            }
+        };
+    }
+
+    /**
+     * Write a plug-in jar file that contains only the manifest.
+     *
+     * @param jar jar file
+     * @param mainClass main class name
+     * @return {@code jar}
+     * @throws IOException if occurs I/O error
+     */
+    static Path write(Path jar, String mainClass) throws IOException {
+        return write(jar, mainClass, Map.of());
+    }
+}